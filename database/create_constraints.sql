@@ -23,3 +23,42 @@ ALTER TABLE user_accounts
     ADD CONSTRAINT pk_user_accounts PRIMARY KEY (id);
 ALTER TABLE user_accounts
     ADD CONSTRAINT fk_user_accounts_users FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE user_accounts
+    ADD CONSTRAINT uq_user_accounts_user_id UNIQUE (user_id);
+
+ALTER TABLE event_capacities
+    ADD CONSTRAINT pk_event_capacities PRIMARY KEY (event_id, category);
+ALTER TABLE event_capacities
+    ADD CONSTRAINT fk_event_capacities_events FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE;
+
+ALTER TABLE event_sales
+    ADD CONSTRAINT pk_event_sales PRIMARY KEY (event_id, category);
+ALTER TABLE event_sales
+    ADD CONSTRAINT fk_event_sales_events FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE;
+ALTER TABLE event_sales
+    ADD CONSTRAINT ck_event_sales_sold CHECK (sold >= 0);
+
+ALTER TABLE seats
+    ADD CONSTRAINT pk_seats PRIMARY KEY (id);
+ALTER TABLE seats
+    ADD CONSTRAINT fk_seats_events FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE;
+ALTER TABLE seats
+    ADD CONSTRAINT uq_seats_event_id_category_place UNIQUE (event_id, category, place);
+CREATE INDEX idx_seats_event_id_category_status_place ON seats (event_id, category, status, place);
+CREATE INDEX idx_events_date_id ON events (date, id);
+CREATE INDEX idx_users_name_id ON users (name, id);
+CREATE INDEX idx_tickets_user_id_id ON tickets (user_id, id);
+CREATE INDEX idx_tickets_event_id_id ON tickets (event_id, id);
+CREATE INDEX idx_tickets_created_at ON tickets (created_at);
+CREATE INDEX idx_events_title_fts ON events USING gin (to_tsvector('simple', title));
+
+ALTER TABLE event_stats
+    ADD CONSTRAINT pk_event_stats PRIMARY KEY (event_id, category);
+ALTER TABLE event_stats
+    ADD CONSTRAINT fk_event_stats_events FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE;
+
+ALTER TABLE account_ledger
+    ADD CONSTRAINT pk_account_ledger PRIMARY KEY (id);
+ALTER TABLE account_ledger
+    ADD CONSTRAINT fk_account_ledger_users FOREIGN KEY (user_id) REFERENCES users (id);
+CREATE INDEX idx_account_ledger_user_id_id ON account_ledger (user_id, id);
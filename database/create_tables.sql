@@ -20,8 +20,9 @@ CREATE TABLE tickets
     id       BIGINT GENERATED ALWAYS AS IDENTITY,
     user_id  BIGINT,
     event_id BIGINT,
-    place    INT         NOT NULL,
-    category VARCHAR(50) NOT NULL
+    place      INT         NOT NULL,
+    category   VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP   NOT NULL DEFAULT (now())
 );
 
 CREATE TABLE user_accounts
@@ -29,4 +30,45 @@ CREATE TABLE user_accounts
     id      BIGINT GENERATED ALWAYS AS IDENTITY,
     user_id BIGINT,
     money   DECIMAL(6, 2) NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE TABLE event_capacities
+(
+    event_id BIGINT      NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    capacity INT         NOT NULL
+);
+
+CREATE TABLE event_sales
+(
+    event_id BIGINT      NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    sold     INT         NOT NULL DEFAULT (0)
+);
+
+CREATE TABLE seats
+(
+    id       BIGINT GENERATED ALWAYS AS IDENTITY,
+    event_id BIGINT      NOT NULL,
+    place    INT         NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    status   VARCHAR(10) NOT NULL DEFAULT ('FREE')
+);
+
+CREATE TABLE event_stats
+(
+    event_id BIGINT         NOT NULL,
+    category VARCHAR(50)    NOT NULL,
+    sold     BIGINT         NOT NULL,
+    capacity INT,
+    revenue  DECIMAL(12, 2) NOT NULL
+);
+
+CREATE TABLE account_ledger
+(
+    id         BIGINT GENERATED ALWAYS AS IDENTITY,
+    user_id    BIGINT        NOT NULL,
+    amount     DECIMAL(7, 2) NOT NULL,
+    balance    DECIMAL(6, 2) NOT NULL,
+    created_at TIMESTAMP     NOT NULL DEFAULT (now())
+);
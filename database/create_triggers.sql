@@ -0,0 +1,51 @@
+CREATE FUNCTION notify_cache_invalidation() RETURNS TRIGGER AS
+$$
+BEGIN
+    PERFORM pg_notify('cache_invalidation',
+                      TG_TABLE_NAME || ':' || CASE TG_OP WHEN 'DELETE' THEN OLD.id ELSE NEW.id END || ':' ||
+                      current_setting('application_name'));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_events_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE
+    ON events
+    FOR EACH ROW
+EXECUTE FUNCTION notify_cache_invalidation();
+CREATE TRIGGER tr_users_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE
+    ON users
+    FOR EACH ROW
+EXECUTE FUNCTION notify_cache_invalidation();
+CREATE TRIGGER tr_user_accounts_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE
+    ON user_accounts
+    FOR EACH ROW
+EXECUTE FUNCTION notify_cache_invalidation();
+CREATE TRIGGER tr_tickets_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE
+    ON tickets
+    FOR EACH ROW
+EXECUTE FUNCTION notify_cache_invalidation();
+
+CREATE FUNCTION append_account_ledger() RETURNS TRIGGER AS
+$$
+BEGIN
+    INSERT INTO account_ledger (user_id, amount, balance)
+    VALUES (NEW.user_id, NEW.money - CASE TG_OP WHEN 'UPDATE' THEN OLD.money ELSE 0 END, NEW.money);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_user_accounts_ledger_insert
+    AFTER INSERT
+    ON user_accounts
+    FOR EACH ROW
+EXECUTE FUNCTION append_account_ledger();
+CREATE TRIGGER tr_user_accounts_ledger_update
+    AFTER UPDATE OF money
+    ON user_accounts
+    FOR EACH ROW
+    WHEN (OLD.money IS DISTINCT FROM NEW.money)
+EXECUTE FUNCTION append_account_ledger();
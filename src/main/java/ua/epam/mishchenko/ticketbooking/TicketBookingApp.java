@@ -4,12 +4,20 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import ua.epam.mishchenko.ticketbooking.analytics.TrendingEvents;
 import ua.epam.mishchenko.ticketbooking.service.DatabaseMigrationService;
+import ua.epam.mishchenko.ticketbooking.service.MoneyConversionService;
+import ua.epam.mishchenko.ticketbooking.service.TicketRelayoutService;
 
 @SpringBootApplication
+@EnableScheduling
 @RequiredArgsConstructor
 public class TicketBookingApp implements CommandLineRunner {
     private final DatabaseMigrationService databaseMigrationService;
+    private final TicketRelayoutService ticketRelayoutService;
+    private final MoneyConversionService moneyConversionService;
+    private final TrendingEvents trendingEvents;
 
     public static void main(String[] args) {
         SpringApplication.run(TicketBookingApp.class, args);
@@ -18,5 +26,8 @@ public class TicketBookingApp implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         databaseMigrationService.migrate();
+        ticketRelayoutService.relayout();
+        moneyConversionService.convert();
+        trendingEvents.rebuild();
     }
 }
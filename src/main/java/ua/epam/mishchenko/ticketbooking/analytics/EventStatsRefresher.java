@@ -0,0 +1,59 @@
+package ua.epam.mishchenko.ticketbooking.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
+import ua.epam.mishchenko.ticketbooking.service.EventStatsService;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the event statistics view up to date. Booked and canceled tickets mark their events as changed,
+ * and only the changed events are refreshed in the background, so a burst of bookings of an event costs
+ * a single refresh. Events of a failed refresh are marked again.
+ */
+@Component
+public class EventStatsRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(EventStatsRefresher.class);
+
+    private final EventStatsService eventStatsService;
+
+    private final Set<String> changedEventIds = ConcurrentHashMap.newKeySet();
+
+    public EventStatsRefresher(EventStatsService eventStatsService) {
+        this.eventStatsService = eventStatsService;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketBooked(TicketDto ticket) {
+        changedEventIds.add(ticket.getEvent().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketCanceled(CanceledTicketDto ticket) {
+        changedEventIds.add(ticket.getEventId());
+    }
+
+    @Scheduled(fixedDelayString = "${properties.event_stats_refresh_interval}")
+    public void refresh() {
+        Set<String> eventIds = new HashSet<>();
+        for (String eventId : changedEventIds) {
+            if (changedEventIds.remove(eventId)) {
+                eventIds.add(eventId);
+            }
+        }
+        try {
+            eventStatsService.refresh(eventIds);
+        } catch (RuntimeException e) {
+            changedEventIds.addAll(eventIds);
+            log.warn("Can not to refresh the statistics of {} events", eventIds.size(), e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ua.epam.mishchenko.ticketbooking.analytics;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Counts of the recent window kept as a ring of time buckets. A bucket remembers the number of the time
+ * slice it counts, a bucket of a slice that has left the window is reset by the next count falling on it
+ * and is skipped by the sum, so nothing has to expire the counts.
+ */
+public class SlidingWindowCounter {
+
+    private final long bucketMillis;
+
+    private final long[] counts;
+
+    private final long[] slices;
+
+    /**
+     * Creates an empty counter.
+     *
+     * @param window      the length of the window
+     * @param bucketCount the number of buckets the window is split into
+     */
+    public SlidingWindowCounter(Duration window, int bucketCount) {
+        this.bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+        this.counts = new long[bucketCount];
+        this.slices = new long[bucketCount];
+        Arrays.fill(slices, -1);
+    }
+
+    /**
+     * Adds the count at the time. A time older than the slice kept in its bucket has already left
+     * the window and is ignored.
+     *
+     * @param timeMillis the time of the count
+     * @param count      the count
+     */
+    public synchronized void add(long timeMillis, long count) {
+        long slice = timeMillis / bucketMillis;
+        int bucket = (int) (slice % counts.length);
+        if (slices[bucket] > slice) {
+            return;
+        }
+        if (slices[bucket] < slice) {
+            slices[bucket] = slice;
+            counts[bucket] = 0;
+        }
+        counts[bucket] += count;
+    }
+
+    /**
+     * Sums the counts of the window ending at the time.
+     *
+     * @param nowMillis the end of the window
+     * @return the sum
+     */
+    public synchronized long sum(long nowMillis) {
+        long lastSlice = nowMillis / bucketMillis;
+        long sum = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (slices[bucket] > lastSlice - counts.length && slices[bucket] <= lastSlice) {
+                sum += counts[bucket];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,129 @@
+package ua.epam.mishchenko.ticketbooking.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.epam.mishchenko.ticketbooking.dto.BookingTimeDto;
+import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.TrendingEventDto;
+import ua.epam.mishchenko.ticketbooking.service.TicketService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The events with the most tickets booked in the recent window. Every booking is counted in the sliding
+ * window counter of its event, and the ranking is rebuilt in the background by a min-heap bounded by the
+ * size of the ranking, so it costs O(events * log size). Readers get the last ranking without any work.
+ * The counters are not persisted, they are filled from the tickets booked in the window on startup.
+ */
+@Component
+public class TrendingEvents {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingEvents.class);
+
+    private static final Comparator<TrendingEventDto> BY_COUNT = Comparator.comparingLong(TrendingEventDto::getCount)
+            .thenComparing(TrendingEventDto::getEventId, Comparator.reverseOrder());
+
+    private final TicketService ticketService;
+
+    private final Duration window;
+
+    private final int bucketCount;
+
+    private final int size;
+
+    private final Map<String, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+
+    private volatile List<TrendingEventDto> ranking = List.of();
+
+    public TrendingEvents(TicketService ticketService,
+                          @Value("${properties.trending_window}") Duration window,
+                          @Value("${properties.trending_buckets}") int bucketCount,
+                          @Value("${properties.trending_size}") int size) {
+        this.ticketService = ticketService;
+        this.window = window;
+        this.bucketCount = bucketCount;
+        this.size = size;
+    }
+
+    /**
+     * Gets the last ranking.
+     *
+     * @param limit the maximum number of events
+     * @return the events with the most bookings first
+     */
+    public List<TrendingEventDto> getTop(int limit) {
+        List<TrendingEventDto> top = ranking;
+        return top.subList(0, Math.max(0, Math.min(limit, top.size())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketBooked(TicketDto ticket) {
+        record(ticket.getEvent().getId(), System.currentTimeMillis());
+    }
+
+    /**
+     * Counts a booking. The counter is changed inside the map entry, so it can not be dropped meanwhile
+     * by {@link #rank(long)}.
+     *
+     * @param eventId    the event id
+     * @param timeMillis the time of the booking
+     */
+    public void record(String eventId, long timeMillis) {
+        counters.compute(eventId, (id, counter) -> {
+            SlidingWindowCounter current = counter == null ? new SlidingWindowCounter(window, bucketCount) : counter;
+            current.add(timeMillis, 1);
+            return current;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${properties.trending_refresh_interval}")
+    public void refresh() {
+        rank(System.currentTimeMillis());
+    }
+
+    /**
+     * Ranks the events by the bookings of the window ending at the time. Counters without bookings
+     * in the window are dropped.
+     *
+     * @param nowMillis the end of the window
+     */
+    public void rank(long nowMillis) {
+        PriorityQueue<TrendingEventDto> heap = new PriorityQueue<>(BY_COUNT);
+        for (String eventId : counters.keySet()) {
+            SlidingWindowCounter counter = counters.computeIfPresent(eventId,
+                    (id, eventCounter) -> eventCounter.sum(nowMillis) == 0 ? null : eventCounter);
+            if (counter == null) {
+                continue;
+            }
+            heap.offer(new TrendingEventDto(eventId, counter.sum(nowMillis)));
+            if (heap.size() > size) {
+                heap.poll();
+            }
+        }
+        List<TrendingEventDto> top = new ArrayList<>(heap);
+        top.sort(BY_COUNT.reversed());
+        ranking = List.copyOf(top);
+    }
+
+    /**
+     * Fills the counters with the tickets booked in the window, called once on startup.
+     */
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        List<BookingTimeDto> bookings = ticketService.getBookingsSince(new Date(now - window.toMillis()));
+        bookings.forEach(booking -> record(booking.getEventId(), booking.getBookedAt().getTime()));
+        rank(now);
+        log.info("Trending events rebuilt from {} bookings of {} events", bookings.size(), counters.size());
+    }
+}
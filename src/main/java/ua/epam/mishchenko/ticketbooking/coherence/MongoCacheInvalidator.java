@@ -0,0 +1,185 @@
+package ua.epam.mishchenko.ticketbooking.coherence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.ledger.AccountLedger;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.model.UserMongo;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the local caches of this node coherent with writes of the other nodes. Updates, replacements
+ * and deletions of events and users are pushed by change streams as they are committed and the cached
+ * entries of their ids are dropped. Only the document keys and the updated field names are streamed,
+ * not the documents. The streams are filtered on the server: updates of events touching only the sold
+ * counters, updates of users leaving the account untouched and updates stamped by this node, see
+ * {@link WriterStamp}, are not streamed. Change streams need a replica set, a single node replica set
+ * is enough.
+ * <p>
+ * A failed stream is registered again after a delay, resuming after the last change it delivered.
+ * Both caches are evicted then, as changes may have been missed meanwhile.
+ */
+@Profile(value = "mongo")
+@Component
+public class MongoCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoCacheInvalidator.class);
+
+    private static final Duration RESUBSCRIBE_DELAY = Duration.ofSeconds(5);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Cache<String, EventDto> eventCache;
+
+    private final AccountLedger accountLedger;
+
+    private final TaskScheduler taskScheduler;
+
+    @Value("${properties.cache_invalidation_enabled}")
+    private boolean invalidationEnabled;
+
+    private MessageListenerContainer container;
+
+    public MongoCacheInvalidator(MongoTemplate mongoTemplate, Cache<String, EventDto> eventCache,
+                                 AccountLedger accountLedger, TaskScheduler taskScheduler) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventCache = eventCache;
+        this.accountLedger = accountLedger;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        if (!invalidationEnabled) {
+            return;
+        }
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.start();
+        new Stream(EventMongo.class, "^sold(\\.|$)", false, eventCache::invalidate).register();
+        new Stream(UserMongo.class, "^userAccount(\\.|$)", true, accountLedger::evict).register();
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    private void evictAll() {
+        eventCache.invalidateAll();
+        accountLedger.evictAll();
+    }
+
+    /**
+     * The change stream of one collection, keeping the resume token of the last delivered change.
+     */
+    private class Stream {
+
+        private final Class<?> type;
+
+        private final String fields;
+
+        private final boolean fieldsRelevant;
+
+        private final Consumer<String> invalidate;
+
+        private volatile BsonValue resumeToken;
+
+        private volatile boolean delivered;
+
+        private Subscription subscription;
+
+        /**
+         * @param type           the type of the documents
+         * @param fields         the pattern of updated field names
+         * @param fieldsRelevant true if only updates of the matching fields invalidate, false if updates
+         *                       of the matching fields alone do not invalidate
+         * @param invalidate     the invalidation of the cached entry by id
+         */
+        private Stream(Class<?> type, String fields, boolean fieldsRelevant, Consumer<String> invalidate) {
+            this.type = type;
+            this.fields = fields;
+            this.fieldsRelevant = fieldsRelevant;
+            this.invalidate = invalidate;
+        }
+
+        private synchronized void register() {
+            if (subscription != null) {
+                container.remove(subscription);
+            }
+            delivered = false;
+            ChangeStreamRequest.ChangeStreamRequestBuilder<Document> request = ChangeStreamRequest
+                    .builder((Message<ChangeStreamDocument<Document>, Document> message) -> onChange(message.getRaw()))
+                    .collection(mongoTemplate.getCollectionName(type))
+                    .filter(relevantChanges());
+            if (resumeToken != null) {
+                request.resumeAfter(resumeToken);
+            }
+            subscription = container.register(request.build(), Document.class, this::onError);
+        }
+
+        private void onChange(ChangeStreamDocument<Document> change) {
+            invalidate.accept(idOf(change));
+            resumeToken = change.getResumeToken();
+            delivered = true;
+        }
+
+        /**
+         * Drops the resume token when the stream failed again before delivering anything,
+         * the token may be too old to resume after.
+         */
+        private void onError(Throwable e) {
+            if (!delivered) {
+                resumeToken = null;
+            }
+            log.warn("The change stream of {} failed, caches of this node are evicted and the stream is " +
+                    "registered again in {}", type.getSimpleName(), RESUBSCRIBE_DELAY, e);
+            evictAll();
+            taskScheduler.schedule(this::register, Instant.now().plus(RESUBSCRIBE_DELAY));
+        }
+
+        private Document relevantChanges() {
+            Document fieldMatches = new Document("$regexMatch",
+                    new Document("input", "$$this.k").append("regex", fields));
+            Document condition = fieldsRelevant ? fieldMatches : new Document("$not", List.of(fieldMatches));
+            Document relevantFields = new Document("$filter",
+                    new Document("input", new Document("$objectToArray", "$updateDescription.updatedFields"))
+                            .append("cond", condition));
+            Document relevantUpdate = new Document("operationType", "update")
+                    .append("updateDescription.updatedFields." + WriterStamp.FIELD,
+                            new Document("$not", new Document("$regex", WriterStamp.ownStamps())))
+                    .append("$expr", new Document("$gt", List.of(new Document("$size", relevantFields), 0)));
+            return new Document("$match", new Document("$or", List.of(
+                    new Document("operationType", new Document("$in", List.of("replace", "delete"))),
+                    relevantUpdate)));
+        }
+
+        private String idOf(ChangeStreamDocument<Document> change) {
+            BsonValue id = change.getDocumentKey().get("_id");
+            return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package ua.epam.mishchenko.ticketbooking.coherence;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ua.epam.mishchenko.ticketbooking.config.QueryCacheRegions;
+import ua.epam.mishchenko.ticketbooking.model.Event;
+import ua.epam.mishchenko.ticketbooking.model.Ticket;
+import ua.epam.mishchenko.ticketbooking.model.User;
+import ua.epam.mishchenko.ticketbooking.model.UserAccount;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the second level cache of this node coherent with writes of the other nodes. Triggers of the
+ * cached tables notify the {@value #CHANNEL} channel with the table and the id of every inserted, updated
+ * or deleted row and the application name of the writing connection, see database/create_triggers.sql.
+ * One connection of the pool listens to the channel, the cached entity of the row is evicted together with
+ * the query regions reading the table, so cached empty results do not hide inserted rows. Writes of this
+ * node are skipped, as Hibernate invalidates them itself, the connections of a node share a unique
+ * application name.
+ * The whole cache is evicted whenever listening starts, as notifications sent before are lost.
+ */
+@Profile(value = "postgres")
+@Component
+public class PostgresCacheInvalidator {
+
+    /**
+     * The constant log.
+     */
+    private static final Logger log = LoggerFactory.getLogger(PostgresCacheInvalidator.class);
+
+    /**
+     * The notification channel.
+     */
+    private static final String CHANNEL = "cache_invalidation";
+
+    /**
+     * The time to wait for notifications before checking whether the listener is stopped.
+     */
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+
+    /**
+     * The time to wait before listening again after the connection failed.
+     */
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    /**
+     * The cached entities by table.
+     */
+    private static final Map<String, Class<?>> ENTITIES = Map.of(
+            "events", Event.class,
+            "users", User.class,
+            "user_accounts", UserAccount.class,
+            "tickets", Ticket.class);
+
+    /**
+     * The query cache regions by the table their queries read.
+     */
+    private static final Map<String, List<String>> QUERY_REGIONS = Map.of(
+            "events", List.of(QueryCacheRegions.EVENTS),
+            "users", List.of(QueryCacheRegions.USERS),
+            "user_accounts", List.of(QueryCacheRegions.USER_ACCOUNTS));
+
+    /**
+     * The data source.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * The entity manager factory.
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * The flag whether the invalidation is enabled.
+     */
+    @Value("${properties.cache_invalidation_enabled}")
+    private boolean invalidationEnabled;
+
+    /**
+     * The flag whether the listener is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * The listener thread.
+     */
+    private Thread listener;
+
+    /**
+     * The application name of the connections of this node.
+     */
+    private String applicationName;
+
+    /**
+     * Instantiates a new PostgresCacheInvalidator.
+     *
+     * @param dataSource           the data source
+     * @param entityManagerFactory the entity manager factory
+     */
+    public PostgresCacheInvalidator(DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Starts listening to the channel.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        if (!invalidationEnabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Stops listening to the channel.
+     */
+    @PreDestroy
+    public void unsubscribe() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Listens to the channel until stopped, again after a failed connection.
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                applicationName = getApplicationName(statement);
+                evictAll();
+                log.info("Listening to the {} channel as {}", CHANNEL, applicationName);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        Set<String> queryRegions = new HashSet<>();
+                        for (PGNotification notification : notifications) {
+                            evict(notification.getParameter(), queryRegions);
+                        }
+                        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+                        queryRegions.forEach(cache::evictQueryRegion);
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Can not to listen to the {} channel, listening again in {} ms",
+                            CHANNEL, RECONNECT_DELAY_MILLIS, e);
+                    sleepBeforeReconnect();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the application name of the listening connection, the pool sets the same name for all its connections.
+     *
+     * @param statement the statement of the listening connection
+     * @return the application name
+     */
+    private String getApplicationName(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("SELECT current_setting('application_name')")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    /**
+     * Evicts the cached entity of the row written by another node and collects the query regions
+     * reading its table, they are evicted once for all notifications received together.
+     *
+     * @param payload      the table, the id of the row and the application name separated by colons
+     * @param queryRegions the query regions to evict
+     */
+    private void evict(String payload, Set<String> queryRegions) {
+        String[] parts = payload.split(":", 3);
+        Class<?> entity = parts.length < 3 ? null : ENTITIES.get(parts[0]);
+        if (entity == null) {
+            log.warn("Unknown cache invalidation: {}", payload);
+            return;
+        }
+        if (parts[2].equals(applicationName)) {
+            return;
+        }
+        entityManagerFactory.getCache().evict(entity, Long.valueOf(parts[1]));
+        queryRegions.addAll(QUERY_REGIONS.getOrDefault(parts[0], List.of()));
+        log.debug("Cache invalidated: {}", payload);
+    }
+
+    /**
+     * Evicts all cached entities and query results.
+     */
+    private void evictAll() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    /**
+     * Waits before listening again, stopping the listener interrupts the wait.
+     */
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ua.epam.mishchenko.ticketbooking.coherence;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Stamps updates of cached documents with this node, so the change stream listener of the node can skip
+ * its own writes. The stamp is unique per write, as an update setting an unchanged value does not list
+ * the field among the updated fields of its change.
+ */
+public final class WriterStamp {
+
+    public static final String FIELD = "writer";
+
+    private static final String NODE = new ObjectId().toHexString();
+
+    private WriterStamp() {
+    }
+
+    /**
+     * Adds the stamp of this node to the update.
+     *
+     * @param update the update
+     * @return the update
+     */
+    public static Update stamp(Update update) {
+        return update.set(FIELD, NODE + ":" + new ObjectId().toHexString());
+    }
+
+    /**
+     * Gets the pattern of the stamps of this node.
+     *
+     * @return the regular expression
+     */
+    public static String ownStamps() {
+        return "^" + NODE + ":";
+    }
+}
@@ -0,0 +1,34 @@
+package ua.epam.mishchenko.ticketbooking.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+
+import java.time.Duration;
+
+/**
+ * Read-through cache of events for the mongo profile, the postgres profile relies on the second level cache.
+ */
+@Profile(value = "mongo")
+@Configuration
+public class EventCacheConfig {
+
+    @Value("${properties.event_cache_maximum_size}")
+    private long maximumSize;
+
+    @Value("${properties.event_cache_ttl}")
+    private Duration ttl;
+
+    @Bean
+    public Cache<String, EventDto> eventCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -1,17 +1,24 @@
 package ua.epam.mishchenko.ticketbooking.config;
 
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import java.util.List;
+
 @RequiredArgsConstructor
 @Configuration
 @EnableMongoRepositories(basePackages = "ua.epam.mishchenko.ticketbooking")
 public class MongoConfig extends AbstractMongoClientConfiguration {
+    private final List<CommandListener> commandListeners;
     @Value("${spring.data.mongodb.database}")
     private String databaseName;
     @Value("${spring.data.mongodb.host}")
@@ -26,6 +33,14 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
 
     @Override
     public MongoClient mongoClient() {
-        return MongoClients.create("mongodb://" + host + ":" + port);
+        return MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://" + host + ":" + port))
+                .commandListenerList(commandListeners)
+                .build());
+    }
+
+    @Override
+    protected void configureConverters(MongoCustomConversions.MongoConverterConfigurationAdapter adapter) {
+        adapter.registerConverters(MoneyConverters.getConverters());
     }
 }
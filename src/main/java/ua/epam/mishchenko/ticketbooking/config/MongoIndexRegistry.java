@@ -0,0 +1,198 @@
+package ua.epam.mishchenko.ticketbooking.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.stereotype.Component;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.model.EventStatsMongo;
+import ua.epam.mishchenko.ticketbooking.model.LedgerEntryMongo;
+import ua.epam.mishchenko.ticketbooking.model.SeatMongo;
+import ua.epam.mishchenko.ticketbooking.model.TicketMongo;
+import ua.epam.mishchenko.ticketbooking.model.UserMongo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All indexes of the Mongo collections and the hot queries they serve, declared in one place.
+ * The indexes are ensured on startup instead of by automatic index creation, so every build is logged
+ * with its time. Then every hot query is checked to have an index made of its equality fields followed
+ * by its sort fields. A query without one is logged or stops the startup, as set by
+ * {@code properties.mongo_index_policy}.
+ */
+@Profile(value = "mongo")
+@Component
+public class MongoIndexRegistry implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexRegistry.class);
+
+    private static final List<IndexSpec> INDEXES = List.of(
+            new IndexSpec(EventMongo.class, "uq_events_title_date", true, "title", "date"),
+            new IndexSpec(EventMongo.class, "idx_events_date_id", false, "date", "_id"),
+            IndexSpec.text(EventMongo.class, "txt_events_title", "title"),
+            new IndexSpec(UserMongo.class, "uq_users_email", true, "email"),
+            new IndexSpec(UserMongo.class, "idx_users_name_id", false, "name", "_id"),
+            new IndexSpec(TicketMongo.class, "idx_tickets_event_id", false, "event", "_id"),
+            new IndexSpec(TicketMongo.class, "idx_tickets_user_id", false, "user._id", "_id"),
+            new IndexSpec(TicketMongo.class, "uq_tickets_event_place_category", true, "event", "place", "category"),
+            new IndexSpec(EventStatsMongo.class, "idx_event_stats_event_category", false, "eventId", "category"),
+            new IndexSpec(LedgerEntryMongo.class, "uq_ledger_entries_user_seq", true, "userId", "seq"),
+            new IndexSpec(LedgerEntryMongo.class, "idx_ledger_entries_created_at", false, "createdAt"),
+            new IndexSpec(SeatMongo.class, "uq_seats_event_category_place", true, "eventId", "category", "place"),
+            new IndexSpec(SeatMongo.class, "idx_seats_event_category_status_place", false,
+                    "eventId", "category", "status", "place"));
+
+    private static final List<HotQuery> HOT_QUERIES = List.of(
+            new HotQuery("events by title", EventMongo.class, List.of("title"), List.of("date")),
+            new HotQuery("events between dates", EventMongo.class, List.of(), List.of("date", "_id")),
+            new HotQuery("event exists by title and date", EventMongo.class, List.of("title", "date"), List.of()),
+            new HotQuery("user by email", UserMongo.class, List.of("email"), List.of()),
+            new HotQuery("users by name", UserMongo.class, List.of("name"), List.of("_id")),
+            new HotQuery("tickets by event", TicketMongo.class, List.of("event"), List.of("_id")),
+            new HotQuery("tickets by user", TicketMongo.class, List.of("user._id"), List.of("_id")),
+            new HotQuery("tickets by event in a place bucket", TicketMongo.class, List.of("event"),
+                    List.of("place", "category")),
+            new HotQuery("ticket exists by event, place and category", TicketMongo.class,
+                    List.of("event", "place", "category"), List.of()),
+            new HotQuery("statistics of an event", EventStatsMongo.class,
+                    List.of("eventId"), List.of("category")),
+            new HotQuery("ledger entries of a user after a sequence number", LedgerEntryMongo.class,
+                    List.of("userId"), List.of("seq")),
+            new HotQuery("seats by event, category and status", SeatMongo.class,
+                    List.of("eventId", "category", "status"), List.of("place")));
+
+    /**
+     * What to do when a hot query has no supporting index.
+     */
+    public enum Policy {
+        WARN,
+        FAIL
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Policy policy;
+
+    public MongoIndexRegistry(MongoTemplate mongoTemplate,
+                              @Value("${properties.mongo_index_policy}") Policy policy) {
+        this.mongoTemplate = mongoTemplate;
+        this.policy = policy;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        ensureIndexes();
+        checkHotQueries();
+    }
+
+    private void ensureIndexes() {
+        for (IndexSpec spec : INDEXES) {
+            long start = System.nanoTime();
+            String name = mongoTemplate.indexOps(spec.type).ensureIndex(spec.toIndex());
+            log.info("Ensured index {} on {} in {} ms", name, mongoTemplate.getCollectionName(spec.type),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private void checkHotQueries() {
+        List<String> unsupported = new ArrayList<>();
+        for (HotQuery query : HOT_QUERIES) {
+            boolean supported = mongoTemplate.indexOps(query.type).getIndexInfo().stream()
+                    .anyMatch(query::isSupportedBy);
+            if (!supported) {
+                unsupported.add(query.name);
+                log.warn("The hot query '{}' on {} has no supporting index", query.name,
+                        mongoTemplate.getCollectionName(query.type));
+            }
+        }
+        if (!unsupported.isEmpty() && policy == Policy.FAIL) {
+            throw new IllegalStateException("Hot queries without a supporting index: " + unsupported);
+        }
+    }
+
+    private static class IndexSpec {
+
+        private final Class<?> type;
+
+        private final String name;
+
+        private final boolean unique;
+
+        private final boolean text;
+
+        private final String[] keys;
+
+        private IndexSpec(Class<?> type, String name, boolean unique, String... keys) {
+            this(type, name, unique, false, keys);
+        }
+
+        private IndexSpec(Class<?> type, String name, boolean unique, boolean text, String... keys) {
+            this.type = type;
+            this.name = name;
+            this.unique = unique;
+            this.text = text;
+            this.keys = keys;
+        }
+
+        private static IndexSpec text(Class<?> type, String name, String... keys) {
+            return new IndexSpec(type, name, false, true, keys);
+        }
+
+        private IndexDefinition toIndex() {
+            if (text) {
+                return new TextIndexDefinition.TextIndexDefinitionBuilder().named(name).onFields(keys).build();
+            }
+            Index index = new Index().named(name);
+            for (String key : keys) {
+                index.on(key, Sort.Direction.ASC);
+            }
+            return unique ? index.unique() : index;
+        }
+    }
+
+    private static class HotQuery {
+
+        private final String name;
+
+        private final Class<?> type;
+
+        private final List<String> equalityFields;
+
+        private final List<String> sortFields;
+
+        private HotQuery(String name, Class<?> type, List<String> equalityFields, List<String> sortFields) {
+            this.name = name;
+            this.type = type;
+            this.equalityFields = equalityFields;
+            this.sortFields = sortFields;
+        }
+
+        /**
+         * An index supports the query when it starts with the equality fields in any order
+         * and goes on with the sort fields in order, so neither a scan nor an in-memory sort is needed.
+         */
+        private boolean isSupportedBy(IndexInfo index) {
+            List<String> keys = index.getIndexFields().stream()
+                    .map(IndexField::getKey)
+                    .toList();
+            int equalityCount = equalityFields.size();
+            if (keys.size() < equalityCount + sortFields.size()) {
+                return false;
+            }
+            return new HashSet<>(keys.subList(0, equalityCount)).equals(new HashSet<>(equalityFields))
+                    && keys.subList(equalityCount, equalityCount + sortFields.size()).equals(sortFields);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ua.epam.mishchenko.ticketbooking.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts commands, response bytes and time per command and collection, e.g. {@code find events}.
+ * Measuring a response encodes it once more, so the listener is switched by {@code properties.mongo_traffic_metrics}.
+ */
+@Component
+public class MongoTrafficListener implements CommandListener {
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private final boolean enabled;
+
+    private final Map<Integer, String> startedCommands = new ConcurrentHashMap<>();
+
+    private final Map<String, Traffic> traffic = new ConcurrentHashMap<>();
+
+    public MongoTrafficListener(@Value("${properties.mongo_traffic_metrics}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (enabled) {
+            startedCommands.put(event.getRequestId(), key(event.getCommandName(), event.getCommand()));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String key = startedCommands.remove(event.getRequestId());
+        if (key != null) {
+            traffic.computeIfAbsent(key, k -> new Traffic())
+                    .add(size(event.getResponse()), event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        String key = startedCommands.remove(event.getRequestId());
+        if (key != null) {
+            traffic.computeIfAbsent(key, k -> new Traffic())
+                    .add(0, event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the traffic per command and collection.
+     *
+     * @return the commands count, the response bytes and the total time in milliseconds per key
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        traffic.forEach((key, value) -> snapshot.put(key, Map.of(
+                "commands", value.commands.sum(),
+                "responseBytes", value.responseBytes.sum(),
+                "totalMillis", TimeUnit.NANOSECONDS.toMillis(value.nanos.sum()))));
+        return snapshot;
+    }
+
+    public void reset() {
+        traffic.clear();
+    }
+
+    /**
+     * The collection is the value of the command name field, a getMore keeps it in the collection field.
+     */
+    private String key(String commandName, BsonDocument command) {
+        BsonValue collection = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return collection != null && collection.isString()
+                ? commandName + ' ' + collection.asString().getValue()
+                : commandName;
+    }
+
+    private long size(BsonDocument response) {
+        RawBsonDocument raw = response instanceof RawBsonDocument
+                ? (RawBsonDocument) response
+                : new RawBsonDocument(response, CODEC);
+        return raw.getByteBuffer().remaining();
+    }
+
+    private static class Traffic {
+
+        private final LongAdder commands = new LongAdder();
+
+        private final LongAdder responseBytes = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+
+        private void add(long bytes, long elapsedNanos) {
+            commands.increment();
+            responseBytes.add(bytes);
+            nanos.add(elapsedNanos);
+        }
+    }
+}
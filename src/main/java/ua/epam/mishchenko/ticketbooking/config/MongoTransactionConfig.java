@@ -0,0 +1,24 @@
+package ua.epam.mishchenko.ticketbooking.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Multi-document transactions for the mongo profile, they need a replica set. The transaction manager
+ * is not registered as a bean, so {@code @Transactional} keeps using the JPA transaction manager,
+ * e.g. for the migration, and Mongo transactions are run explicitly by the template.
+ */
+@Profile(value = "mongo")
+@Configuration
+public class MongoTransactionConfig {
+
+    @Bean
+    public TransactionOperations mongoTransaction(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new TransactionTemplate(new MongoTransactionManager(mongoDatabaseFactory));
+    }
+}
@@ -0,0 +1,18 @@
+package ua.epam.mishchenko.ticketbooking.config;
+
+/**
+ * Names of the query cache regions of the cacheable repository finders, sized in application.conf.
+ * A cached result is dropped when Hibernate writes one of the tables the query reads, statements
+ * which bypass Hibernate evict the region themselves.
+ */
+public final class QueryCacheRegions {
+
+    public static final String EVENTS = "query.events";
+
+    public static final String USERS = "query.users";
+
+    public static final String USER_ACCOUNTS = "query.userAccounts";
+
+    private QueryCacheRegions() {
+    }
+}
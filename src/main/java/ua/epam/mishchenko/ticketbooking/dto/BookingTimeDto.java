@@ -0,0 +1,19 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * The event of a booked ticket and the time it was booked.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingTimeDto {
+
+    private String eventId;
+    private Date bookedAt;
+}
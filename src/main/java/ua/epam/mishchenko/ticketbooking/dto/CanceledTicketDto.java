@@ -0,0 +1,25 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+
+import java.math.BigDecimal;
+
+/**
+ * A canceled ticket together with the refunded price. Published as an application event
+ * so that anything caching seat state can release the place.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CanceledTicketDto {
+
+    private String ticketId;
+    private String userId;
+    private String eventId;
+    private int place;
+    private Category category;
+    private BigDecimal price;
+}
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ua.epam.mishchenko.ticketbooking.model.Category;
 import ua.epam.mishchenko.ticketbooking.model.Event;
 import ua.epam.mishchenko.ticketbooking.model.EventMongo;
 
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Data
@@ -21,6 +24,15 @@ public class EventDto {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
     private Date date;
     private BigDecimal ticketPrice;
+    private Map<Category, Integer> capacity = new EnumMap<>(Category.class);
+    private Map<Category, Integer> sold = new EnumMap<>(Category.class);
+
+    public EventDto(String id, String title, Date date, BigDecimal ticketPrice) {
+        this.id = id;
+        this.title = title;
+        this.date = date;
+        this.ticketPrice = ticketPrice;
+    }
 
     public EventDto(Long id, String title, Date date, BigDecimal ticketPrice) {
         this.id = String.valueOf(id);
@@ -40,6 +52,8 @@ public class EventDto {
         eventDto.setTitle(event.getTitle());
         eventDto.setDate(event.getDate());
         eventDto.setTicketPrice(event.getTicketPrice());
+        eventDto.setCapacity(copyCapacity(event.getCapacity()));
+        eventDto.setSold(copyCapacity(event.getSold()));
         return eventDto;
     }
 
@@ -49,6 +63,8 @@ public class EventDto {
         eventDto.setTitle(event.getTitle());
         eventDto.setDate(event.getDate());
         eventDto.setTicketPrice(event.getTicketPrice());
+        eventDto.setCapacity(copyCapacity(event.getCapacity()));
+        eventDto.setSold(copyCapacity(event.getSold()));
         return eventDto;
     }
 
@@ -62,6 +78,7 @@ public class EventDto {
         event.setDate(eventDto.getDate());
         event.setTitle(eventDto.getTitle());
         event.setTicketPrice(eventDto.getTicketPrice());
+        event.getCapacity().putAll(copyCapacity(eventDto.getCapacity()));
         return event;
 
     }
@@ -72,6 +89,36 @@ public class EventDto {
         event.setDate(eventDto.getDate());
         event.setTitle(eventDto.getTitle());
         event.setTicketPrice(eventDto.getTicketPrice());
+        event.setCapacity(copyCapacity(eventDto.getCapacity()));
         return event;
     }
+
+    /**
+     * Checks whether seats of the category are pre-materialized for the event.
+     *
+     * @param category the category
+     * @return true if the event has a seat inventory for the category
+     */
+    public boolean hasSeatInventory(Category category) {
+        return capacity != null && capacity.getOrDefault(category, 0) > 0;
+    }
+
+    /**
+     * Checks whether all seats of the category were sold when the event was read.
+     *
+     * @param category the category
+     * @return true if the event has a seat inventory for the category and no seat is left
+     */
+    public boolean isSoldOut(Category category) {
+        return hasSeatInventory(category)
+                && sold != null && sold.getOrDefault(category, 0) >= capacity.get(category);
+    }
+
+    private static Map<Category, Integer> copyCapacity(Map<Category, Integer> capacity) {
+        Map<Category, Integer> copy = new EnumMap<>(Category.class);
+        if (capacity != null) {
+            copy.putAll(capacity);
+        }
+        return copy;
+    }
 }
@@ -0,0 +1,37 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Precomputed sales of a category of an event: sold tickets, the capacity if the event has a seat
+ * inventory and the revenue at the current ticket price.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventStatsDto {
+
+    private String eventId;
+    private Category category;
+    private long sold;
+    private Integer capacity;
+    private BigDecimal revenue;
+
+    /**
+     * Gets the sold tickets in percent of the capacity.
+     *
+     * @return the occupancy or null if the category has no capacity
+     */
+    public BigDecimal getOccupancy() {
+        if (capacity == null || capacity == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(sold * 100).divide(BigDecimal.valueOf(capacity), 2, RoundingMode.HALF_UP);
+    }
+}
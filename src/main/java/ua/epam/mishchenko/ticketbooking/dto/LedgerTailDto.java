@@ -0,0 +1,35 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The ledger entries of a user after a sequence number, summed up.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerTailDto {
+
+    private BigDecimal amount;
+    private long lastSeq;
+    private long count;
+
+    public static LedgerTailDto empty(long seq) {
+        return new LedgerTailDto(BigDecimal.ZERO, seq, 0);
+    }
+
+    /**
+     * Checks that no entry between the sequence number and the last one was missed,
+     * an entry inserted while the entries are summed may be skipped by the scan.
+     *
+     * @param seq the sequence number the entries follow
+     * @return true if every entry up to the last one is summed
+     */
+    public boolean isCompleteAfter(long seq) {
+        return count == lastSeq - seq;
+    }
+}
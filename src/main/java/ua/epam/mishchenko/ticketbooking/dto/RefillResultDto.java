@@ -0,0 +1,27 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The outcome of one credit of a bulk account refill.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefillResultDto {
+
+    private String userId;
+    private BigDecimal amount;
+    private Status status;
+
+    public enum Status {
+        REFILLED,
+        INVALID_AMOUNT,
+        USER_NOT_FOUND,
+        FAILED
+    }
+}
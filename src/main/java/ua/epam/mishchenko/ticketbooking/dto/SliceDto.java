@@ -0,0 +1,56 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A slice of a list without the total count. The next slice is requested with the {@code next} token,
+ * which is null for the last slice.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceDto<T> {
+
+    private List<T> content = new ArrayList<>();
+    private String next;
+
+    public static <T> SliceDto<T> empty() {
+        return new SliceDto<>(new ArrayList<>(), null);
+    }
+
+    /**
+     * Creates a slice from rows read with a limit of one more than the slice size.
+     * The extra row only tells that there is a next slice and is dropped.
+     *
+     * @param rows     the rows, at most size + 1
+     * @param size     the slice size
+     * @param position the position of a row in the list
+     * @return the slice
+     */
+    public static <T> SliceDto<T> of(List<T> rows, int size, Function<T, ContinuationToken> position) {
+        if (rows.size() <= size) {
+            return new SliceDto<>(rows, null);
+        }
+        List<T> content = new ArrayList<>(rows.subList(0, size));
+        return new SliceDto<>(content, position.apply(content.get(size - 1)).encode());
+    }
+
+    public <R> SliceDto<R> map(Function<T, R> mapper) {
+        return new SliceDto<>(content.stream().map(mapper).toList(), next);
+    }
+
+    public boolean hasContent() {
+        return !content.isEmpty();
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,17 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An event title and the number of events with it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TitleCountDto {
+
+    private String title;
+    private Long count;
+}
@@ -0,0 +1,17 @@
+package ua.epam.mishchenko.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An event and the number of its tickets booked in the trending window.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingEventDto {
+
+    private String eventId;
+    private long count;
+}
@@ -1,12 +1,18 @@
 package ua.epam.mishchenko.ticketbooking.facade;
 
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+import ua.epam.mishchenko.ticketbooking.dto.RefillResultDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.TrendingEventDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.model.Category;
 
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Groups together all operations related to tickets booking.
@@ -25,20 +31,49 @@ public interface BookingFacade {
      * In case nothing was found, empty list is returned.
      * @param title Event title or it's part.
      * @param pageSize Pagination param. Number of events to return on a page.
-     * @param pageNum Pagination param. Number of the page to return. Starts from 1.
-     * @return List of events.
+     * @param cursor Pagination param. Continuation token of the previous slice, null for the first slice.
+     * @return Slice of events, the next slice is requested with its continuation token.
      */
-    List<EventDto> getEventsByTitle(String title, int pageSize, int pageNum);
+    SliceDto<EventDto> getEventsByTitle(String title, int pageSize, String cursor);
 
     /**
-     * Get list of events for specified day.
+     * Get list of events for specified day, from the start of the day to the start of the next day
+     * in the configured time zone.
      * In case nothing was found, empty list is returned.
      * @param day Date object from which day information is extracted.
      * @param pageSize Pagination param. Number of events to return on a page.
-     * @param pageNum Pagination param. Number of the page to return. Starts from 1.
-     * @return List of events.
+     * @param cursor Pagination param. Continuation token of the previous slice, null for the first slice.
+     * @return Slice of events, the next slice is requested with its continuation token.
      */
-    List<EventDto> getEventsForDay(Date day, int pageSize, int pageNum);
+    SliceDto<EventDto> getEventsForDay(Date day, int pageSize, String cursor);
+
+    /**
+     * Get list of events in the date range, e.g. for a calendar view.
+     * In case nothing was found, empty slice is returned.
+     * @param from Start of the range, inclusive.
+     * @param to End of the range, exclusive.
+     * @param pageSize Pagination param. Number of events to return on a page.
+     * @param cursor Pagination param. Continuation token of the previous slice, null for the first slice.
+     * @return Slice of events ordered by date, the next slice is requested with its continuation token.
+     */
+    SliceDto<EventDto> getEventsBetween(Date from, Date to, int pageSize, String cursor);
+
+    /**
+     * Search events by the words of their titles, relevance-ranked.
+     * In case nothing was found, empty list is returned.
+     * @param text Words of the title, word forms are matched as well.
+     * @param limit Maximum number of events to return.
+     * @return List of events, the best matching events first.
+     */
+    List<EventDto> searchEventsByTitle(String text, int limit);
+
+    /**
+     * Suggest event titles for type-ahead. The prefix is matched ignoring case.
+     * @param prefix Beginning of the title.
+     * @param limit Maximum number of titles to return.
+     * @return List of distinct titles in alphabetical order.
+     */
+    List<String> suggestTitles(String prefix, int limit);
 
     /**
      * Creates new event. Event id should be auto-generated.
@@ -78,10 +113,10 @@ public interface BookingFacade {
      * In case nothing was found, empty list is returned.
      * @param name Users name or it's part.
      * @param pageSize Pagination param. Number of users to return on a page.
-     * @param pageNum Pagination param. Number of the page to return. Starts from 1.
-     * @return List of users.
+     * @param cursor Pagination param. Continuation token of the previous slice, null for the first slice.
+     * @return Slice of users, the next slice is requested with its continuation token.
      */
-    List<UserDto> getUsersByName(String name, int pageSize, int pageNum);
+    SliceDto<UserDto> getUsersByName(String name, int pageSize, String cursor);
 
     /**
      * Creates new user. User id should be auto-generated.
@@ -115,23 +150,89 @@ public interface BookingFacade {
      */
     TicketDto bookTicket(String userId, String eventId, int place, Category category);
 
+    /**
+     * Book the best free places of the category, places with lower numbers are better.
+     * Either all tickets are booked or none of them.
+     * @param userId User Id.
+     * @param eventId Event Id.
+     * @param category Service category.
+     * @param count Number of tickets.
+     * @return Booked tickets in place order or an empty list if not enough places are free.
+     */
+    List<TicketDto> bookBestAvailable(String userId, String eventId, Category category, int count);
+
+    /**
+     * Book a block of adjacent free places of the category, the lowest block of the shortest run
+     * of free places long enough is taken.
+     * Either all tickets are booked or none of them.
+     * @param userId User Id.
+     * @param eventId Event Id.
+     * @param category Service category.
+     * @param count Number of tickets.
+     * @return Booked tickets in place order or an empty list if there is no such block.
+     */
+    List<TicketDto> bookContiguous(String userId, String eventId, Category category, int count);
+
     /**
      * Get all booked tickets for specified user. Tickets should be sorted by event date in descending order.
      * @param user User
      * @param pageSize Pagination param. Number of tickets to return on a page.
-     * @param pageNum Pagination param. Number of the page to return. Starts from 1.
-     * @return List of Ticket objects.
+     * @param cursor Pagination param. Continuation token of the previous slice, null for the first slice.
+     * @return Slice of Ticket objects, the next slice is requested with its continuation token.
      */
-    List<TicketDto> getBookedTickets(UserDto user, int pageSize, int pageNum);
+    SliceDto<TicketDto> getBookedTickets(UserDto user, int pageSize, String cursor);
 
     /**
      * Get all booked tickets for specified event. Tickets should be sorted in by user email in ascending order.
      * @param event Event
      * @param pageSize Pagination param. Number of tickets to return on a page.
-     * @param pageNum Pagination param. Number of the page to return. Starts from 1.
-     * @return List of Ticket objects.
+     * @param cursor Pagination param. Continuation token of the previous slice, null for the first slice.
+     * @return Slice of Ticket objects, the next slice is requested with its continuation token.
      */
-    List<TicketDto> getBookedTickets(EventDto event, int pageSize, int pageNum);
+    SliceDto<TicketDto> getBookedTickets(EventDto event, int pageSize, String cursor);
+
+    /**
+     * Get booked tickets of a bucket of places of the event. A bucket is a fixed range of places,
+     * see {@link ua.epam.mishchenko.ticketbooking.utils.PlaceBucket}.
+     * @param event Event
+     * @param bucket Number of the place bucket, starting with 0.
+     * @return List of Ticket objects in place order.
+     */
+    List<TicketDto> getBookedTicketsInBucket(EventDto event, int bucket);
+
+    /**
+     * Counts free seats of the category. Only events created with a capacity have a seat inventory.
+     * @param eventId Event id.
+     * @param category Service category.
+     * @return Number of free seats.
+     */
+    long getAvailableSeatsCount(String eventId, Category category);
+
+    /**
+     * Get free places of the category in ascending order.
+     * @param eventId Event id.
+     * @param category Service category.
+     * @param limit Maximum number of places to return.
+     * @return List of free places.
+     */
+    List<Integer> getFreePlaces(String eventId, Category category, int limit);
+
+    /**
+     * Check the cached sold-out flag of the category without querying the database.
+     * @param eventId Event id.
+     * @param category Service category.
+     * @return Flag whether the category is known to be sold out.
+     */
+    boolean isSoldOut(String eventId, Category category);
+
+    /**
+     * Find the best fitting block of adjacent free places of the category.
+     * @param eventId Event id.
+     * @param category Service category.
+     * @param count Number of places.
+     * @return Places of the block or an empty list if there is no such block.
+     */
+    List<Integer> findContiguousPlaces(String eventId, Category category, int count);
 
     /**
      * Cancel ticket with a specified id.
@@ -140,4 +241,33 @@ public interface BookingFacade {
      */
     boolean cancelTicket(String ticketId);
 
+    /**
+     * Cancel tickets with specified ids. Each ticket is refunded and its seat is freed.
+     * @param ticketIds Ticket ids.
+     * @return Number of canceled tickets.
+     */
+    int cancelTickets(List<String> ticketIds);
+
+    /**
+     * Refill accounts of many users at once, for example by a partner integration.
+     * @param amounts Amounts to add by user id.
+     * @return Result of every credit: refilled, invalid amount, user not found or failed.
+     */
+    List<RefillResultDto> refillUserAccounts(Map<String, BigDecimal> amounts);
+
+    /**
+     * Get precomputed sales statistics of the event: sold tickets, occupancy and revenue per category.
+     * The statistics are refreshed in the background shortly after tickets are booked or canceled.
+     * @param eventId Event id.
+     * @return List of statistics in category order, empty if no ticket of the event has been sold.
+     */
+    List<EventStatsDto> getEventStats(String eventId);
+
+    /**
+     * Get the events with the most tickets booked in the last hour. The ranking is kept in memory
+     * and refreshed in the background, so reading it does not query the database.
+     * @param limit Maximum number of events to return.
+     * @return List of events with their number of bookings, the most booked event first.
+     */
+    List<TrendingEventDto> getTrendingEvents(int limit);
 }
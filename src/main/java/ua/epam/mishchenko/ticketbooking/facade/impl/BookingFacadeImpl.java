@@ -1,13 +1,20 @@
 package ua.epam.mishchenko.ticketbooking.facade.impl;
 
 import org.springframework.stereotype.Component;
+import ua.epam.mishchenko.ticketbooking.analytics.TrendingEvents;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+import ua.epam.mishchenko.ticketbooking.dto.RefillResultDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.TrendingEventDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserAccountDTO;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.facade.BookingFacade;
 import ua.epam.mishchenko.ticketbooking.model.Category;
 import ua.epam.mishchenko.ticketbooking.service.EventService;
+import ua.epam.mishchenko.ticketbooking.service.EventStatsService;
+import ua.epam.mishchenko.ticketbooking.service.SeatInventoryService;
 import ua.epam.mishchenko.ticketbooking.service.TicketService;
 import ua.epam.mishchenko.ticketbooking.service.UserAccountService;
 import ua.epam.mishchenko.ticketbooking.service.UserService;
@@ -15,6 +22,7 @@ import ua.epam.mishchenko.ticketbooking.service.UserService;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The type Booking facade.
@@ -42,20 +50,42 @@ public class BookingFacadeImpl implements BookingFacade {
      */
     private final UserAccountService userAccountService;
 
+    /**
+     * The Seat Inventory service.
+     */
+    private final SeatInventoryService seatInventoryService;
+
+    /**
+     * The Event Stats service.
+     */
+    private final EventStatsService eventStatsService;
+
+    /**
+     * The Trending events.
+     */
+    private final TrendingEvents trendingEvents;
+
     /**
      * Instantiates a new Booking facade.
      *
-     * @param eventService       the event service
-     * @param userService        the user service
-     * @param ticketService      the ticket service
-     * @param userAccountService the user account service
+     * @param eventService         the event service
+     * @param userService          the user service
+     * @param ticketService        the ticket service
+     * @param userAccountService   the user account service
+     * @param seatInventoryService the seat inventory service
+     * @param eventStatsService    the event stats service
+     * @param trendingEvents       the trending events
      */
     public BookingFacadeImpl(EventService eventService, UserService userService, TicketService ticketService,
-                             UserAccountService userAccountService) {
+                             UserAccountService userAccountService, SeatInventoryService seatInventoryService,
+                             EventStatsService eventStatsService, TrendingEvents trendingEvents) {
         this.eventService = eventService;
         this.ticketService = ticketService;
         this.userService = userService;
         this.userAccountService = userAccountService;
+        this.seatInventoryService = seatInventoryService;
+        this.eventStatsService = eventStatsService;
+        this.trendingEvents = trendingEvents;
     }
 
     /**
@@ -74,12 +104,12 @@ public class BookingFacadeImpl implements BookingFacade {
      *
      * @param title    the title
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events by title
      */
     @Override
-    public List<EventDto> getEventsByTitle(String title, int pageSize, int pageNum) {
-        return eventService.getEventsByTitle(title, pageSize, pageNum);
+    public SliceDto<EventDto> getEventsByTitle(String title, int pageSize, String cursor) {
+        return eventService.getEventsByTitle(title, pageSize, cursor);
     }
 
     /**
@@ -87,12 +117,50 @@ public class BookingFacadeImpl implements BookingFacade {
      *
      * @param day      the day
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events for day
      */
     @Override
-    public List<EventDto> getEventsForDay(Date day, int pageSize, int pageNum) {
-        return eventService.getEventsForDay(day, pageSize, pageNum);
+    public SliceDto<EventDto> getEventsForDay(Date day, int pageSize, String cursor) {
+        return eventService.getEventsForDay(day, pageSize, cursor);
+    }
+
+    /**
+     * Gets events between the dates.
+     *
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @param pageSize the page size
+     * @param cursor   the continuation token of the previous slice or null for the first slice
+     * @return the events between the dates
+     */
+    @Override
+    public SliceDto<EventDto> getEventsBetween(Date from, Date to, int pageSize, String cursor) {
+        return eventService.getEventsBetween(from, to, pageSize, cursor);
+    }
+
+    /**
+     * Searches events by the words of their titles.
+     *
+     * @param text  the words to search
+     * @param limit the maximum number of events
+     * @return the events, the best matching events first
+     */
+    @Override
+    public List<EventDto> searchEventsByTitle(String text, int limit) {
+        return eventService.searchEventsByTitle(text, limit);
+    }
+
+    /**
+     * Suggests event titles starting with the prefix.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum number of titles
+     * @return the titles in alphabetical order
+     */
+    @Override
+    public List<String> suggestTitles(String prefix, int limit) {
+        return eventService.suggestTitles(prefix, limit);
     }
 
     /**
@@ -155,12 +223,12 @@ public class BookingFacadeImpl implements BookingFacade {
      *
      * @param name     the name
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the users by name
      */
     @Override
-    public List<UserDto> getUsersByName(String name, int pageSize, int pageNum) {
-        return userService.getUsersByName(name, pageSize, pageNum);
+    public SliceDto<UserDto> getUsersByName(String name, int pageSize, String cursor) {
+        return userService.getUsersByName(name, pageSize, cursor);
     }
 
     /**
@@ -210,17 +278,45 @@ public class BookingFacadeImpl implements BookingFacade {
         return ticketService.bookTicket(userId, eventId, place, category);
     }
 
+    /**
+     * Book best available tickets.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets
+     */
+    @Override
+    public List<TicketDto> bookBestAvailable(String userId, String eventId, Category category, int count) {
+        return ticketService.bookBestAvailable(userId, eventId, category, count);
+    }
+
+    /**
+     * Book contiguous tickets.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets
+     */
+    @Override
+    public List<TicketDto> bookContiguous(String userId, String eventId, Category category, int count) {
+        return ticketService.bookContiguous(userId, eventId, category, count);
+    }
+
     /**
      * Gets booked tickets.
      *
      * @param user     the user
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the booked tickets
      */
     @Override
-    public List<TicketDto> getBookedTickets(UserDto user, int pageSize, int pageNum) {
-        return ticketService.getBookedTickets(user, pageSize, pageNum);
+    public SliceDto<TicketDto> getBookedTickets(UserDto user, int pageSize, String cursor) {
+        return ticketService.getBookedTickets(user, pageSize, cursor);
     }
 
     /**
@@ -228,12 +324,74 @@ public class BookingFacadeImpl implements BookingFacade {
      *
      * @param event    the event
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
+     * @return the booked tickets
+     */
+    @Override
+    public SliceDto<TicketDto> getBookedTickets(EventDto event, int pageSize, String cursor) {
+        return ticketService.getBookedTickets(event, pageSize, cursor);
+    }
+
+    /**
+     * Gets booked tickets in the place bucket.
+     *
+     * @param event  the event
+     * @param bucket the number of the place bucket
      * @return the booked tickets
      */
     @Override
-    public List<TicketDto> getBookedTickets(EventDto event, int pageSize, int pageNum) {
-        return ticketService.getBookedTickets(event, pageSize, pageNum);
+    public List<TicketDto> getBookedTicketsInBucket(EventDto event, int bucket) {
+        return ticketService.getBookedTicketsInBucket(event, bucket);
+    }
+
+    /**
+     * Gets available seats count.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @return the available seats count
+     */
+    @Override
+    public long getAvailableSeatsCount(String eventId, Category category) {
+        return seatInventoryService.getAvailableSeatsCount(eventId, category);
+    }
+
+    /**
+     * Gets free places.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param limit    the limit
+     * @return the free places
+     */
+    @Override
+    public List<Integer> getFreePlaces(String eventId, Category category, int limit) {
+        return seatInventoryService.getFreePlaces(eventId, category, limit);
+    }
+
+    /**
+     * Is sold out boolean.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @return the boolean
+     */
+    @Override
+    public boolean isSoldOut(String eventId, Category category) {
+        return seatInventoryService.isSoldOut(eventId, category);
+    }
+
+    /**
+     * Find contiguous places list.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of places
+     * @return the places
+     */
+    @Override
+    public List<Integer> findContiguousPlaces(String eventId, Category category, int count) {
+        return seatInventoryService.findContiguousPlaces(eventId, category, count);
     }
 
     /**
@@ -247,7 +405,51 @@ public class BookingFacadeImpl implements BookingFacade {
         return ticketService.cancelTicket(ticketId);
     }
 
+    /**
+     * Cancel tickets int.
+     *
+     * @param ticketIds the ticket ids
+     * @return the number of canceled tickets
+     */
+    @Override
+    public int cancelTickets(List<String> ticketIds) {
+        return ticketService.cancelTickets(ticketIds);
+    }
+
     public UserAccountDTO refillUserAccount(long userId, BigDecimal money) {
         return userAccountService.refillAccount(userId, money);
     }
+
+    /**
+     * Refills user accounts.
+     *
+     * @param amounts the amounts by user id
+     * @return the result of every credit
+     */
+    @Override
+    public List<RefillResultDto> refillUserAccounts(Map<String, BigDecimal> amounts) {
+        return userAccountService.refillAccounts(amounts);
+    }
+
+    /**
+     * Gets event stats.
+     *
+     * @param eventId the event id
+     * @return the statistics per category
+     */
+    @Override
+    public List<EventStatsDto> getEventStats(String eventId) {
+        return eventStatsService.getEventStats(eventId);
+    }
+
+    /**
+     * Gets trending events.
+     *
+     * @param limit the maximum number of events
+     * @return the most booked events first
+     */
+    @Override
+    public List<TrendingEventDto> getTrendingEvents(int limit) {
+        return trendingEvents.getTop(limit);
+    }
 }
@@ -0,0 +1,56 @@
+package ua.epam.mishchenko.ticketbooking.inventory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The free places of one event category kept both as a {@link FreeSeatTree} for the best seats
+ * and as {@link FreeIntervals} for blocks of adjacent seats. Both are changed together under the lock of this object.
+ */
+class CategorySeats {
+
+    private final FreeSeatTree tree;
+
+    private final FreeIntervals intervals;
+
+    CategorySeats(int capacity, Collection<Integer> freePlaces) {
+        this.tree = new FreeSeatTree(capacity, freePlaces);
+        this.intervals = new FreeIntervals(freePlaces);
+    }
+
+    synchronized int freeCount() {
+        return tree.freeCount();
+    }
+
+    synchronized List<Integer> bookBest(int count) {
+        List<Integer> places = tree.bookBest(count);
+        places.forEach(intervals::book);
+        return places;
+    }
+
+    synchronized List<Integer> findBlock(int count) {
+        int start = intervals.findBlock(count);
+        return start < 0 ? List.of() : IntStream.range(start, start + count).boxed().toList();
+    }
+
+    synchronized List<Integer> bookBlock(int count) {
+        List<Integer> places = findBlock(count);
+        places.forEach(this::book);
+        return places;
+    }
+
+    synchronized void book(int place) {
+        if (tree.hasPlace(place)) {
+            tree.book(place);
+            intervals.book(place);
+        }
+    }
+
+    synchronized void release(int place) {
+        if (tree.hasPlace(place)) {
+            tree.release(place);
+            intervals.release(place);
+        }
+    }
+}
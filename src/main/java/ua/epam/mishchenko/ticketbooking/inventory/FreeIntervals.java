@@ -0,0 +1,122 @@
+package ua.epam.mishchenko.ticketbooking.inventory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Run-length encoded free places of one event category. Every run of adjacent free places is kept
+ * as one start to end entry, so a sold-out row costs nothing and a free row costs one entry.
+ * The starts of the runs are indexed by run length as well, so a block is found in O(log n): it is taken
+ * from the shortest run long enough, the lowest of such runs first, which keeps longer runs for larger
+ * groups. Like {@link FreeSeatTree} the class is not thread safe.
+ */
+public class FreeIntervals {
+
+    private final TreeMap<Integer, Integer> runs = new TreeMap<>();
+
+    private final TreeMap<Integer, TreeSet<Integer>> runStartsByLength = new TreeMap<>();
+
+    /**
+     * Creates the runs of the free places.
+     *
+     * @param freePlaces the free places
+     */
+    public FreeIntervals(Collection<Integer> freePlaces) {
+        freePlaces.stream()
+                .sorted()
+                .distinct()
+                .forEach(this::release);
+    }
+
+    public int runCount() {
+        return runs.size();
+    }
+
+    public int longestRun() {
+        return runStartsByLength.isEmpty() ? 0 : runStartsByLength.lastKey();
+    }
+
+    public boolean isFree(int place) {
+        Map.Entry<Integer, Integer> run = runs.floorEntry(place);
+        return run != null && run.getValue() >= place;
+    }
+
+    /**
+     * Finds the best fitting block of adjacent free places, the start of the lowest of the shortest runs
+     * holding the block.
+     *
+     * @param count the number of places
+     * @return the first place of the block or -1 if there is no such block
+     */
+    public int findBlock(int count) {
+        if (count < 1) {
+            return -1;
+        }
+        Map.Entry<Integer, TreeSet<Integer>> fitting = runStartsByLength.ceilingEntry(count);
+        return fitting == null ? -1 : fitting.getValue().first();
+    }
+
+    /**
+     * Marks the place as booked, the run holding the place is split.
+     *
+     * @param place the place
+     * @return true if the place was free
+     */
+    public boolean book(int place) {
+        Map.Entry<Integer, Integer> run = runs.floorEntry(place);
+        if (run == null || run.getValue() < place) {
+            return false;
+        }
+        int start = run.getKey();
+        int end = run.getValue();
+        removeRun(start, end);
+        if (start < place) {
+            addRun(start, place - 1);
+        }
+        if (place < end) {
+            addRun(place + 1, end);
+        }
+        return true;
+    }
+
+    /**
+     * Marks the place as free, the place is merged with the adjacent runs.
+     *
+     * @param place the place
+     * @return true if the place was booked
+     */
+    public boolean release(int place) {
+        if (isFree(place)) {
+            return false;
+        }
+        int start = place;
+        int end = place;
+        Map.Entry<Integer, Integer> before = runs.floorEntry(place);
+        if (before != null && before.getValue() == place - 1) {
+            start = before.getKey();
+            removeRun(before.getKey(), before.getValue());
+        }
+        Integer afterEnd = runs.get(place + 1);
+        if (afterEnd != null) {
+            end = afterEnd;
+            removeRun(place + 1, afterEnd);
+        }
+        addRun(start, end);
+        return true;
+    }
+
+    private void addRun(int start, int end) {
+        runs.put(start, end);
+        runStartsByLength.computeIfAbsent(end - start + 1, length -> new TreeSet<>()).add(start);
+    }
+
+    private void removeRun(int start, int end) {
+        runs.remove(start);
+        runStartsByLength.computeIfPresent(end - start + 1, (length, starts) -> {
+            starts.remove(start);
+            return starts.isEmpty() ? null : starts;
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package ua.epam.mishchenko.ticketbooking.inventory;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Free places of event categories. They are loaded from the seat inventory on first use and then
+ * follow booked and canceled tickets. The index only proposes places, the seat inventory stays
+ * the source of truth: a proposed place that can not be claimed is simply left booked in the index.
+ */
+@Component
+public class FreeSeatIndex {
+
+    private final Map<String, CategorySeats> seats = new ConcurrentHashMap<>();
+
+    /**
+     * Takes the best free places out of the index.
+     *
+     * @param eventId    the event id
+     * @param category   the category
+     * @param count      the number of places
+     * @param capacity   the loader of the category capacity
+     * @param freePlaces the loader of free places from the seat inventory
+     * @return the places in ascending order or an empty list if not enough places are free
+     */
+    public List<Integer> bookBest(String eventId, Category category, int count, IntSupplier capacity,
+                                  Supplier<Collection<Integer>> freePlaces) {
+        return withReload(eventId, category, capacity, freePlaces, categorySeats -> categorySeats.bookBest(count));
+    }
+
+    /**
+     * Takes the best fitting block of adjacent free places out of the index.
+     *
+     * @param eventId    the event id
+     * @param category   the category
+     * @param count      the number of places
+     * @param capacity   the loader of the category capacity
+     * @param freePlaces the loader of free places from the seat inventory
+     * @return the places in ascending order or an empty list if there is no such block
+     */
+    public List<Integer> bookBlock(String eventId, Category category, int count, IntSupplier capacity,
+                                   Supplier<Collection<Integer>> freePlaces) {
+        return withReload(eventId, category, capacity, freePlaces, categorySeats -> categorySeats.bookBlock(count));
+    }
+
+    /**
+     * Finds the best fitting block of adjacent free places without taking it.
+     *
+     * @param eventId    the event id
+     * @param category   the category
+     * @param count      the number of places
+     * @param capacity   the loader of the category capacity
+     * @param freePlaces the loader of free places from the seat inventory
+     * @return the places in ascending order or an empty list if there is no such block
+     */
+    public List<Integer> findBlock(String eventId, Category category, int count, IntSupplier capacity,
+                                   Supplier<Collection<Integer>> freePlaces) {
+        return getSeats(eventId, category, capacity, freePlaces).findBlock(count);
+    }
+
+    /**
+     * Gives the places back to the index, used when a booking that took them fails.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param places   the places
+     */
+    public void release(String eventId, Category category, Collection<Integer> places) {
+        CategorySeats categorySeats = seats.get(key(eventId, category));
+        if (categorySeats != null) {
+            places.forEach(categorySeats::release);
+        }
+    }
+
+    public void evict(String eventId) {
+        for (Category category : Category.values()) {
+            seats.remove(key(eventId, category));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketBooked(TicketDto ticket) {
+        CategorySeats categorySeats = seats.get(key(ticket.getEvent().getId(), ticket.getCategory()));
+        if (categorySeats != null) {
+            categorySeats.book(ticket.getPlace());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketCanceled(CanceledTicketDto ticket) {
+        release(ticket.getEventId(), ticket.getCategory(), List.of(ticket.getPlace()));
+    }
+
+    /**
+     * Runs the booking and reloads the places once when it finds nothing,
+     * since places freed by other application instances are not seen otherwise.
+     */
+    private List<Integer> withReload(String eventId, Category category, IntSupplier capacity,
+                                     Supplier<Collection<Integer>> freePlaces,
+                                     Function<CategorySeats, List<Integer>> booking) {
+        CategorySeats categorySeats = getSeats(eventId, category, capacity, freePlaces);
+        List<Integer> places = booking.apply(categorySeats);
+        if (!places.isEmpty()) {
+            return places;
+        }
+        seats.remove(key(eventId, category), categorySeats);
+        return booking.apply(getSeats(eventId, category, capacity, freePlaces));
+    }
+
+    private CategorySeats getSeats(String eventId, Category category, IntSupplier capacity,
+                                   Supplier<Collection<Integer>> freePlaces) {
+        String key = key(eventId, category);
+        CategorySeats categorySeats = seats.get(key);
+        if (categorySeats != null) {
+            return categorySeats;
+        }
+        CategorySeats loadedSeats = new CategorySeats(capacity.getAsInt(), freePlaces.get());
+        categorySeats = seats.putIfAbsent(key, loadedSeats);
+        return categorySeats == null ? loadedSeats : categorySeats;
+    }
+
+    private String key(String eventId, Category category) {
+        return eventId + ':' + category;
+    }
+}
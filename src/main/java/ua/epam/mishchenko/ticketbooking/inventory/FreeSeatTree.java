@@ -0,0 +1,139 @@
+package ua.epam.mishchenko.ticketbooking.inventory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Segment tree over the places of one event category. Every node keeps the number of free seats
+ * in its range, so the best free seat, the k-th free seat and the free seats count are found
+ * in O(log n). Seats are ranked by place number, the lower place is the better seat.
+ * The tree is not thread safe, {@link CategorySeats} guards it with its own lock.
+ */
+public class FreeSeatTree {
+
+    private final int capacity;
+
+    private final int leaves;
+
+    private final int[] free;
+
+    /**
+     * Creates a tree of the capacity with the given free places, the rest of places are booked.
+     *
+     * @param capacity   the number of places, places are numbered from 1
+     * @param freePlaces the free places
+     */
+    public FreeSeatTree(int capacity, Collection<Integer> freePlaces) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity can not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.leaves = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.free = new int[leaves * 2];
+        for (Integer place : freePlaces) {
+            checkPlace(place);
+            free[leaves + place - 1] = 1;
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            free[node] = free[2 * node] + free[2 * node + 1];
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int freeCount() {
+        return free[1];
+    }
+
+    public boolean hasPlace(int place) {
+        return place >= 1 && place <= capacity;
+    }
+
+    public boolean isFree(int place) {
+        checkPlace(place);
+        return free[leaves + place - 1] == 1;
+    }
+
+    /**
+     * Marks the place as booked.
+     *
+     * @param place the place
+     * @return true if the place was free
+     */
+    public boolean book(int place) {
+        return set(place, 0);
+    }
+
+    /**
+     * Marks the place as free.
+     *
+     * @param place the place
+     * @return true if the place was booked
+     */
+    public boolean release(int place) {
+        return set(place, 1);
+    }
+
+    /**
+     * Finds the k-th best free place.
+     *
+     * @param k the rank of the free place starting from 1
+     * @return the place or -1 if fewer than k places are free
+     */
+    public int findFree(int k) {
+        if (k < 1 || k > freeCount()) {
+            return -1;
+        }
+        int node = 1;
+        while (node < leaves) {
+            if (free[2 * node] >= k) {
+                node = 2 * node;
+            } else {
+                k -= free[2 * node];
+                node = 2 * node + 1;
+            }
+        }
+        return node - leaves + 1;
+    }
+
+    /**
+     * Books the best free places.
+     *
+     * @param count the number of places
+     * @return the booked places in ascending order or an empty list if fewer places are free
+     */
+    public List<Integer> bookBest(int count) {
+        if (count < 1 || count > freeCount()) {
+            return List.of();
+        }
+        List<Integer> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int place = findFree(1);
+            book(place);
+            places.add(place);
+        }
+        return places;
+    }
+
+    private boolean set(int place, int value) {
+        checkPlace(place);
+        int node = leaves + place - 1;
+        if (free[node] == value) {
+            return false;
+        }
+        int delta = value - free[node];
+        for (; node > 0; node /= 2) {
+            free[node] += delta;
+        }
+        return true;
+    }
+
+    private void checkPlace(int place) {
+        if (!hasPlace(place)) {
+            throw new IllegalArgumentException("The place " + place + " is out of 1.." + capacity);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ua.epam.mishchenko.ticketbooking.inventory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory flags of sold-out event categories. A flag is set once the sold counter of the store
+ * refuses a booking and is cleared when a ticket of the category is canceled. Flags expire after
+ * the configured time, so a flag set concurrently with a cancellation does not stay forever.
+ */
+@Component
+public class SoldOutRegistry {
+
+    private final Map<String, Long> soldOutUntil = new ConcurrentHashMap<>();
+
+    @Value("${properties.sold_out_ttl}")
+    private Duration soldOutTtl;
+
+    public boolean isSoldOut(String eventId, Category category) {
+        Long expiresAt = soldOutUntil.get(key(eventId, category));
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt < System.currentTimeMillis()) {
+            soldOutUntil.remove(key(eventId, category), expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public void markSoldOut(String eventId, Category category) {
+        soldOutUntil.put(key(eventId, category), System.currentTimeMillis() + soldOutTtl.toMillis());
+    }
+
+    public void clear(String eventId, Category category) {
+        soldOutUntil.remove(key(eventId, category));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketCanceled(CanceledTicketDto ticket) {
+        clear(ticket.getEventId(), ticket.getCategory());
+    }
+
+    private String key(String eventId, Category category) {
+        return eventId + ':' + category;
+    }
+}
@@ -0,0 +1,223 @@
+package ua.epam.mishchenko.ticketbooking.ledger;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ua.epam.mishchenko.ticketbooking.dto.LedgerTailDto;
+import ua.epam.mishchenko.ticketbooking.model.LedgerEntryMongo;
+import ua.epam.mishchenko.ticketbooking.model.UserAccountMongo;
+import ua.epam.mishchenko.ticketbooking.repository.LedgerCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.UserAccountCustomMongoRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Account money kept as an append-only ledger. Every credit and debit is inserted as a new entry,
+ * the user document is not written. The balance is the snapshot of the user plus the entries after
+ * the snapshot, the compactor adds the entries to the snapshot from time to time, so only a few recent
+ * entries are summed by a read. A read finding more entries than the configured maximum tail compacts
+ * the ledger of the user at once, so a read sums at most about that many entries, whatever the number
+ * of appends between two runs of the compactor.
+ * <p>
+ * Snapshots are cached. A cached snapshot may be older than the stored one, but the money and
+ * the sequence number of a snapshot always change together and entries are never removed,
+ * so an old snapshot gives the same balance with more entries to sum.
+ */
+@Profile(value = "mongo")
+@Component
+public class AccountLedger {
+
+    private static final int MAX_APPEND_ATTEMPTS = 10;
+
+    private final UserAccountCustomMongoRepository accountRepository;
+
+    private final LedgerCustomMongoRepository ledgerRepository;
+
+    private final Cache<String, UserAccountMongo> snapshots;
+
+    private final long maxTail;
+
+    public AccountLedger(UserAccountCustomMongoRepository accountRepository,
+                         LedgerCustomMongoRepository ledgerRepository,
+                         @Value("${properties.ledger_snapshot_cache_maximum_size}") long snapshotCacheSize,
+                         @Value("${properties.ledger_max_tail}") long maxTail) {
+        this.accountRepository = accountRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.maxTail = maxTail;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(snapshotCacheSize)
+                .build();
+    }
+
+    /**
+     * Appends a credit.
+     *
+     * @param userId the user id
+     * @param amount the positive amount
+     * @param reason the reason kept for reconciliation
+     * @return the new balance or empty if the user does not exist
+     */
+    public Optional<BigDecimal> credit(String userId, BigDecimal amount, String reason) {
+        return append(userId, amount, reason);
+    }
+
+    /**
+     * Appends a debit if the balance covers it. Concurrent appends of the user take the same sequence
+     * number, only one of them is inserted and the rest check the balance again.
+     *
+     * @param userId the user id
+     * @param amount the positive amount
+     * @param reason the reason kept for reconciliation
+     * @return the new balance or empty if the user does not exist or does not have enough money
+     */
+    public Optional<BigDecimal> debit(String userId, BigDecimal amount, String reason) {
+        return append(userId, amount.negate(), reason);
+    }
+
+    /**
+     * Appends credits of many users by one bulk insert, a credit losing its sequence number
+     * to a concurrent append is appended again alone.
+     *
+     * @param amounts the positive amounts by user id
+     * @param reason  the reason kept for reconciliation
+     * @return the ids of the credited users, users which do not exist are not credited
+     */
+    public Set<String> creditAll(Map<String, BigDecimal> amounts, String reason) {
+        Map<String, UserAccountMongo> stored = accountRepository.findByUserIds(amounts.keySet());
+        stored.forEach(snapshots.asMap()::putIfAbsent);
+        Set<String> userIds = stored.keySet();
+        if (userIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        Map<String, Long> snapshotSeqs = new HashMap<>();
+        stored.forEach((userId, snapshot) -> snapshotSeqs.put(userId, snapshot.getLedgerSeq()));
+        Map<String, Long> lastSeqs = ledgerRepository.findLastSeqs(snapshotSeqs);
+        List<LedgerEntryMongo> entries = new ArrayList<>();
+        userIds.forEach(userId -> entries.add(new LedgerEntryMongo(userId, lastSeqs.get(userId) + 1,
+                amounts.get(userId), reason)));
+        Set<String> credited = new HashSet<>(userIds);
+        for (LedgerEntryMongo rejected : ledgerRepository.appendAll(entries)) {
+            if (credit(rejected.getUserId(), rejected.getAmount(), reason).isEmpty()) {
+                credited.remove(rejected.getUserId());
+            }
+        }
+        return credited;
+    }
+
+    /**
+     * Adds the entries appended after the stored snapshot to it.
+     *
+     * @param userId the user id
+     * @return true if the snapshot was moved on
+     */
+    public boolean compact(String userId) {
+        Optional<UserAccountMongo> stored = accountRepository.findByUserId(userId);
+        if (stored.isEmpty()) {
+            snapshots.invalidate(userId);
+            return false;
+        }
+        UserAccountMongo snapshot = stored.get();
+        LedgerTailDto tail = ledgerRepository.sumAfter(userId, snapshot.getLedgerSeq());
+        if (tail.getCount() == 0 || !tail.isCompleteAfter(snapshot.getLedgerSeq())) {
+            return false;
+        }
+        boolean compacted = accountRepository.addToSnapshot(userId, snapshot.getLedgerSeq(), tail.getLastSeq(),
+                tail.getAmount());
+        if (compacted) {
+            snapshots.put(userId, new UserAccountMongo(snapshot.getMoney().add(tail.getAmount()), tail.getLastSeq()));
+        } else {
+            snapshots.invalidate(userId);
+        }
+        return compacted;
+    }
+
+    /**
+     * Drops the cached snapshot of the user, e.g. after the user was changed by another node.
+     *
+     * @param userId the user id
+     */
+    public void evict(String userId) {
+        snapshots.invalidate(userId);
+    }
+
+    /**
+     * Drops all cached snapshots, e.g. after changes of other nodes may have been missed.
+     */
+    public void evictAll() {
+        snapshots.invalidateAll();
+    }
+
+    private Optional<BigDecimal> append(String userId, BigDecimal amount, String reason) {
+        for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+            Optional<Balance> state = getState(userId);
+            if (state.isEmpty()) {
+                return Optional.empty();
+            }
+            BigDecimal money = state.get().getMoney().add(amount);
+            if (money.signum() < 0) {
+                return Optional.empty();
+            }
+            if (ledgerRepository.append(new LedgerEntryMongo(userId, state.get().getLastSeq() + 1, amount, reason))) {
+                return Optional.of(money);
+            }
+        }
+        throw new RuntimeException("Can not to append to the ledger of the user with id " + userId);
+    }
+
+    /**
+     * Reads the balance and the last sequence number, again when an entry being inserted was skipped.
+     */
+    private Optional<Balance> getState(String userId) {
+        for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+            UserAccountMongo snapshot = snapshots.getIfPresent(userId);
+            if (snapshot == null) {
+                Optional<UserAccountMongo> stored = accountRepository.findByUserId(userId);
+                if (stored.isEmpty()) {
+                    return Optional.empty();
+                }
+                snapshot = stored.get();
+                snapshots.put(userId, snapshot);
+            }
+            LedgerTailDto tail = ledgerRepository.sumAfter(userId, snapshot.getLedgerSeq());
+            if (tail.isCompleteAfter(snapshot.getLedgerSeq())) {
+                if (tail.getCount() > maxTail) {
+                    compact(userId);
+                }
+                return Optional.of(new Balance(snapshot.getMoney().add(tail.getAmount()), tail.getLastSeq()));
+            }
+        }
+        throw new RuntimeException("Can not to read the ledger of the user with id " + userId);
+    }
+
+    /**
+     * The balance of a user and the sequence number of the last entry it holds.
+     */
+    private static class Balance {
+
+        private final BigDecimal money;
+
+        private final long lastSeq;
+
+        private Balance(BigDecimal money, long lastSeq) {
+            this.money = money;
+            this.lastSeq = lastSeq;
+        }
+
+        private BigDecimal getMoney() {
+            return money;
+        }
+
+        private long getLastSeq() {
+            return lastSeq;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ua.epam.mishchenko.ticketbooking.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ua.epam.mishchenko.ticketbooking.repository.LedgerCustomMongoRepository;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Adds recent ledger entries to the balance snapshots in the background. Only users with entries stamped
+ * since the start of the previous run are compacted, so entries appended while it ran are found again.
+ * An entry left out is not lost, it is still summed by every balance read.
+ */
+@Profile(value = "mongo")
+@Component
+public class LedgerCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerCompactor.class);
+
+    private final AccountLedger accountLedger;
+
+    private final LedgerCustomMongoRepository ledgerRepository;
+
+    private Date lastRun = new Date(0);
+
+    public LedgerCompactor(AccountLedger accountLedger, LedgerCustomMongoRepository ledgerRepository) {
+        this.accountLedger = accountLedger;
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${properties.ledger_compaction_interval}")
+    public void compact() {
+        Date run = new Date();
+        List<String> userIds = ledgerRepository.findUserIdsSince(lastRun);
+        int compacted = 0;
+        for (String userId : userIds) {
+            try {
+                if (accountLedger.compact(userId)) {
+                    compacted++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Can not to compact the ledger of the user with id: {}", userId, e);
+            }
+        }
+        lastRun = run;
+        if (compacted > 0) {
+            log.info("Compacted the ledgers of {} of {} users", compacted, userIds.size());
+        }
+    }
+}
@@ -4,18 +4,28 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.MapKeyEnumerated;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static ua.epam.mishchenko.ticketbooking.utils.Constants.DATE_FORMATTER;
@@ -24,9 +34,11 @@ import static ua.epam.mishchenko.ticketbooking.utils.Constants.DATE_FORMATTER;
  * The type Event.
  */
 @Entity
-@Table(name = "events")
+@Table(name = "events",
+        uniqueConstraints = @UniqueConstraint(name = "uq_events_title_date", columnNames = {"title", "date"}),
+        indexes = @Index(name = "idx_events_date_id", columnList = "date, id"))
 @Cacheable
-@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "events")
 public class Event {
 
     /**
@@ -61,6 +73,28 @@ public class Event {
     @OneToMany(mappedBy = "event", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private final List<Ticket> tickets = new ArrayList<>();
 
+    /**
+     * The number of seats per category. Empty when the event has no seat inventory.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "event_capacities", joinColumns = @JoinColumn(name = "event_id"))
+    @MapKeyEnumerated(EnumType.STRING)
+    @MapKeyColumn(name = "category")
+    @Column(name = "capacity", nullable = false)
+    @org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "events.capacity")
+    private Map<Category, Integer> capacity = new HashMap<>();
+
+    /**
+     * The number of sold seats per category. The counters are changed only by conditional
+     * updates of the repository, so they are not cached and never written from the entity.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "event_sales", joinColumns = @JoinColumn(name = "event_id"))
+    @MapKeyEnumerated(EnumType.STRING)
+    @MapKeyColumn(name = "category")
+    @Column(name = "sold", nullable = false)
+    private Map<Category, Integer> sold = new HashMap<>();
+
     /**
      * Instantiates a new Event.
      */
@@ -167,6 +201,42 @@ public class Event {
         this.ticketPrice = ticketPrice;
     }
 
+    /**
+     * Gets capacity per category.
+     *
+     * @return the capacity per category
+     */
+    public Map<Category, Integer> getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets capacity per category.
+     *
+     * @param capacity the capacity per category
+     */
+    public void setCapacity(Map<Category, Integer> capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets sold seats per category.
+     *
+     * @return the sold seats per category
+     */
+    public Map<Category, Integer> getSold() {
+        return sold;
+    }
+
+    /**
+     * Sets sold seats per category.
+     *
+     * @param sold the sold seats per category
+     */
+    public void setSold(Map<Category, Integer> sold) {
+        this.sold = sold;
+    }
+
     /**
      * Adds ticket to the tickets list.
      *
@@ -0,0 +1,25 @@
+package ua.epam.mishchenko.ticketbooking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * The fields of an event shown with its tickets, copied into every ticket so ticket lists are read
+ * without the events. The copies are changed together with the event.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventHeaderMongo {
+    private String title;
+    private Date date;
+    private BigDecimal ticketPrice;
+
+    public static EventHeaderMongo of(EventMongo event) {
+        return new EventHeaderMongo(event.getTitle(), event.getDate(), event.getTicketPrice());
+    }
+}
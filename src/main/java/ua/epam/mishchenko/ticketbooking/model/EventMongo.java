@@ -8,9 +8,9 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -23,5 +23,6 @@ public class EventMongo {
     @DateTimeFormat(pattern="yyyy-MM-dd HH:mm")
     private Date date;
     private BigDecimal ticketPrice;
-    private List<TicketMongo> tickets = new ArrayList<>();
+    private Map<Category, Integer> capacity = new EnumMap<>(Category.class);
+    private Map<Category, Integer> sold = new EnumMap<>(Category.class);
 }
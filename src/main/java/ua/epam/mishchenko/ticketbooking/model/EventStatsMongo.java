@@ -0,0 +1,28 @@
+package ua.epam.mishchenko.ticketbooking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * A row of the event statistics view, written only by the aggregation which refreshes it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "eventStats")
+public class EventStatsMongo {
+    @Id
+    private String id;
+    private String eventId;
+    private Category category;
+    private long sold;
+    private Integer capacity;
+    private BigDecimal revenue;
+    private Date refreshedAt;
+}
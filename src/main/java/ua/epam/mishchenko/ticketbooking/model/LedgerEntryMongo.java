@@ -0,0 +1,32 @@
+package ua.epam.mishchenko.ticketbooking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * An immutable money movement of a user account. Entries of a user are numbered without gaps, the unique
+ * (userId, seq) index lets only one of concurrent appends take a number. The amount is negative for debits.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ledgerEntries")
+public class LedgerEntryMongo {
+    @Id
+    private String id;
+    private String userId;
+    private long seq;
+    private BigDecimal amount;
+    private String reason;
+    private Date createdAt;
+
+    public LedgerEntryMongo(String userId, long seq, BigDecimal amount, String reason) {
+        this(null, userId, seq, amount, reason, new Date());
+    }
+}
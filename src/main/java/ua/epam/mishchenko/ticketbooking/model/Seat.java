@@ -0,0 +1,212 @@
+package ua.epam.mishchenko.ticketbooking.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Objects;
+
+/**
+ * The type Seat.
+ */
+@Entity
+@Table(name = "seats",
+        uniqueConstraints = @UniqueConstraint(name = "uq_seats_event_id_category_place",
+                columnNames = {"event_id", "category", "place"}),
+        indexes = @Index(name = "idx_seats_event_id_category_status_place",
+                columnList = "event_id, category, status, place"))
+public class Seat {
+
+    /**
+     * The Id.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The Event entity.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "event_id", nullable = false)
+    private Event event;
+
+    /**
+     * The Place.
+     */
+    @Column(name = "place", nullable = false)
+    private Integer place;
+
+    /**
+     * The Category.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "category", nullable = false)
+    private Category category;
+
+    /**
+     * The Status.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private SeatStatus status;
+
+    /**
+     * Instantiates a new Seat.
+     */
+    public Seat() {
+    }
+
+    /**
+     * Instantiates a new Seat.
+     *
+     * @param event    the event entity
+     * @param place    the place
+     * @param category the category
+     * @param status   the status
+     */
+    public Seat(Event event, int place, Category category, SeatStatus status) {
+        this.event = event;
+        this.place = place;
+        this.category = category;
+        this.status = status;
+    }
+
+    /**
+     * Gets id.
+     *
+     * @return the id
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets id.
+     *
+     * @param id the id
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets event entity.
+     *
+     * @return the event entity
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Sets event entity.
+     *
+     * @param event the event entity
+     */
+    public void setEvent(Event event) {
+        this.event = event;
+    }
+
+    /**
+     * Gets place.
+     *
+     * @return the place
+     */
+    public int getPlace() {
+        return place;
+    }
+
+    /**
+     * Sets place.
+     *
+     * @param place the place
+     */
+    public void setPlace(int place) {
+        this.place = place;
+    }
+
+    /**
+     * Gets category.
+     *
+     * @return the category
+     */
+    public Category getCategory() {
+        return category;
+    }
+
+    /**
+     * Sets category.
+     *
+     * @param category the category
+     */
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+
+    /**
+     * Gets status.
+     *
+     * @return the status
+     */
+    public SeatStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets status.
+     *
+     * @param status the status
+     */
+    public void setStatus(SeatStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Equals boolean.
+     *
+     * @param o the o
+     * @return the boolean
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Seat seat = (Seat) o;
+        return Objects.equals(id, seat.id) && Objects.equals(place, seat.place) && category == seat.category && status == seat.status;
+    }
+
+    /**
+     * Hash code int.
+     *
+     * @return the int
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, place, category, status);
+    }
+
+    /**
+     * To string string.
+     *
+     * @return the string
+     */
+    @Override
+    public String toString() {
+        return "{" +
+                "'id' : " + id +
+                ", 'place' : " + place +
+                ", 'category' : '" + category +
+                "', 'status' : '" + status +
+                "'}";
+    }
+}
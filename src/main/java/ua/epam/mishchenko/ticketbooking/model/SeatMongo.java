@@ -0,0 +1,31 @@
+package ua.epam.mishchenko.ticketbooking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Pre-materialized seat of an event. Booking claims a seat by flipping its
+ * status from {@link SeatStatus#FREE} to {@link SeatStatus#BOOKED} in a single conditional update.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "seats")
+public class SeatMongo {
+    @Id
+    private String id;
+    private String eventId;
+    private int place;
+    private Category category;
+    private SeatStatus status;
+
+    public SeatMongo(String eventId, int place, Category category, SeatStatus status) {
+        this.eventId = eventId;
+        this.place = place;
+        this.category = category;
+        this.status = status;
+    }
+}
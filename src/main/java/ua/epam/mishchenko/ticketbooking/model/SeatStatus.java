@@ -0,0 +1,6 @@
+package ua.epam.mishchenko.ticketbooking.model;
+
+public enum SeatStatus {
+    FREE,
+    BOOKED
+}
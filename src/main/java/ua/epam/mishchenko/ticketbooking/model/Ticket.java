@@ -9,9 +9,12 @@ import java.util.Objects;
  * The type Ticket.
  */
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets",
+        uniqueConstraints = @UniqueConstraint(name = "uq_tickets_event_id_place", columnNames = {"event_id", "place"}),
+        indexes = {@Index(name = "idx_tickets_user_id_id", columnList = "user_id, id"),
+                @Index(name = "idx_tickets_event_id_id", columnList = "event_id, id")})
 @Cacheable
-@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tickets")
 public class Ticket {
 
     /**
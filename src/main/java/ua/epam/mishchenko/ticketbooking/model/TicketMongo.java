@@ -15,4 +15,5 @@ public class TicketMongo {
     private UserMongo user;
     private int place;
     private Category category;
+    private EventHeaderMongo eventHeader;
 }
@@ -11,9 +11,11 @@ import java.util.Objects;
  * The type User.
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = @UniqueConstraint(name = "uq_users_email", columnNames = "email"),
+        indexes = @Index(name = "idx_users_name_id", columnList = "name, id"))
 @Cacheable
-@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
 
     /**
@@ -6,9 +6,10 @@ import javax.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "user_accounts")
+@Table(name = "user_accounts",
+        uniqueConstraints = @UniqueConstraint(name = "uq_user_accounts_user_id", columnNames = "user_id"))
 @Cacheable
-@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "userAccounts")
 public class UserAccount {
 
     /**
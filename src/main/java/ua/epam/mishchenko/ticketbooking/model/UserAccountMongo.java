@@ -6,9 +6,14 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
+/**
+ * The balance snapshot of a user. The money holds every ledger entry up to the sequence number,
+ * later entries are added to it when the balance is read.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserAccountMongo {
     private BigDecimal money;
+    private long ledgerSeq;
 }
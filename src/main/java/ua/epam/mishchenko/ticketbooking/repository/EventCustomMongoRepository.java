@@ -0,0 +1,190 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import ua.epam.mishchenko.ticketbooking.coherence.WriterStamp;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.TitleCountDto;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.EventHeaderMongo;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.model.TicketMongo;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class EventCustomMongoRepository {
+
+    private static final String CAPACITY = "capacity.";
+
+    private static final String SOLD = "sold.";
+
+    private static final String DATE = "date";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Finds a slice of events with the title ordered by date, without the embedded tickets.
+     *
+     * @param title the title
+     * @param after the position of the last event of the previous slice or null for the first slice
+     * @param limit the maximum number of events
+     * @return the events
+     */
+    public List<EventMongo> findByTitle(String title, ContinuationToken after, int limit) {
+        return findEvents(Criteria.where("title").is(title), Sort.by(DATE), after, limit);
+    }
+
+    /**
+     * Finds a slice of events in the half-open date range ordered by date and id, without the embedded tickets.
+     *
+     * @param from  the start of the range, inclusive
+     * @param to    the end of the range, exclusive
+     * @param after the position of the last event of the previous slice or null for the first slice
+     * @param limit the maximum number of events
+     * @return the events
+     */
+    public List<EventMongo> findBetween(Date from, Date to, ContinuationToken after, int limit) {
+        return findEvents(Criteria.where(DATE).gte(from).lt(to), Sort.by(DATE, "_id"), after, limit);
+    }
+
+    /**
+     * Runs the filter sorted as the supporting index, events of one title are unique by date,
+     * so the (title, date) index alone gives the order without an in-memory sort.
+     */
+    private List<EventMongo> findEvents(Criteria filter, Sort sort, ContinuationToken after, int limit) {
+        Query query = new BasicQuery(new Document(), Document.parse(EventMongoRepository.EVENT_FIELDS));
+        query.addCriteria(after == null ? filter : new Criteria().andOperator(filter, after(after)));
+        query.with(sort).limit(limit);
+        return mongoTemplate.find(query, EventMongo.class);
+    }
+
+    /**
+     * Matches events after the position in the (date, _id) order.
+     */
+    private Criteria after(ContinuationToken position) {
+        ObjectId id = new ObjectId(position.getId());
+        return new Criteria().orOperator(
+                Criteria.where(DATE).gt(position.getDate()),
+                Criteria.where(DATE).is(position.getDate()).and("_id").gt(id));
+    }
+
+    /**
+     * Increments the sold counter of the category unless it would exceed the capacity.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of sold seats
+     * @return true if enough seats were left and the counter was incremented
+     */
+    public boolean incrementSold(String eventId, Category category, int count) {
+        Document sold = new Document("$ifNull", List.of("$" + SOLD + category, 0));
+        Query query = new BasicQuery(new Document("_id", eventId)
+                .append(CAPACITY + category, new Document("$exists", true))
+                .append("$expr", new Document("$lte",
+                        List.of(new Document("$add", List.of(sold, count)), "$" + CAPACITY + category))));
+        return mongoTemplate.updateFirst(query, new Update().inc(SOLD + category, count), EventMongo.class)
+                .getModifiedCount() == 1;
+    }
+
+    /**
+     * Decrements the sold counters of canceled tickets, one update per event and category.
+     * Categories without a counter are skipped.
+     *
+     * @param tickets the canceled tickets
+     */
+    public void decrementSold(Collection<CanceledTicketDto> tickets) {
+        tickets.stream()
+                .collect(Collectors.groupingBy(CanceledTicketDto::getEventId,
+                        Collectors.groupingBy(CanceledTicketDto::getCategory, Collectors.counting())))
+                .forEach((eventId, counts) -> counts.forEach((category, count) ->
+                        decrementSold(eventId, category, count)));
+    }
+
+    public void decrementSold(String eventId, Category category, long count) {
+        Query query = Query.query(Criteria.where("_id").is(eventId).and(SOLD + category).gte(count));
+        mongoTemplate.updateFirst(query, new Update().inc(SOLD + category, -count), EventMongo.class);
+    }
+
+    /**
+     * Sets the title, the date and the price of the event, the capacity and the sold counters are left untouched.
+     * The event header copied into the tickets of the event is updated too.
+     *
+     * @param event the event with new details
+     * @return the updated event or empty if the event does not exist
+     */
+    public Optional<EventMongo> updateDetails(EventMongo event) {
+        Query query = Query.query(Criteria.where("_id").is(event.getId()));
+        Update update = WriterStamp.stamp(new Update()
+                .set("title", event.getTitle())
+                .set("date", event.getDate())
+                .set("ticketPrice", event.getTicketPrice()));
+        Optional<EventMongo> updated = Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), EventMongo.class));
+        updated.ifPresent(this::updateTicketHeaders);
+        return updated;
+    }
+
+    private void updateTicketHeaders(EventMongo event) {
+        Query tickets = new BasicQuery(new Document("event", new ObjectId(event.getId())));
+        mongoTemplate.updateMulti(tickets, Update.update("eventHeader", EventHeaderMongo.of(event)),
+                TicketMongo.class);
+    }
+
+    /**
+     * Removes the event.
+     *
+     * @param eventId the event id
+     * @return the removed event without the embedded tickets or empty if the event does not exist
+     */
+    public Optional<EventMongo> deleteDetails(String eventId) {
+        Query query = new BasicQuery(new Document(), Document.parse(EventMongoRepository.EVENT_FIELDS));
+        query.addCriteria(Criteria.where("_id").is(eventId));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, EventMongo.class));
+    }
+
+    /**
+     * Finds events by the words of their titles with the text index, the best matching events first.
+     *
+     * @param text  the words to search
+     * @param limit the maximum number of events
+     * @return the events without the embedded tickets
+     */
+    public List<EventMongo> searchByTitle(String text, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .sortByScore()
+                .limit(limit);
+        query.fields().include("title", DATE, "ticketPrice", "capacity", "sold");
+        return mongoTemplate.find(query, EventMongo.class);
+    }
+
+    /**
+     * Counts events per title.
+     *
+     * @return the titles with the number of events
+     */
+    public List<TitleCountDto> countTitles() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("title").count().as("count"),
+                Aggregation.project("count").and("_id").as("title").andExclude("_id"));
+        return mongoTemplate.aggregate(aggregation, EventMongo.class, TitleCountDto.class).getMappedResults();
+    }
+}
@@ -1,17 +1,21 @@
 package ua.epam.mishchenko.ticketbooking.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import ua.epam.mishchenko.ticketbooking.model.EventMongo;
 
 import java.util.Date;
+import java.util.Optional;
 
 public interface EventMongoRepository extends MongoRepository<EventMongo, String> {
 
-    Page<EventMongo> getAllByTitle(Pageable pageable, String title);
+    /**
+     * The fields of an event without the embedded tickets, the only fields an EventDto is built from.
+     */
+    String EVENT_FIELDS = "{ 'title' : 1, 'date' : 1, 'ticketPrice' : 1, 'capacity' : 1, 'sold' : 1 }";
 
-    Page<EventMongo> getAllByDate(Pageable pageable, Date day);
+    @Query(value = "{ '_id' : ?0 }", fields = EVENT_FIELDS)
+    Optional<EventMongo> findDetailsById(String id);
 
     Boolean existsByTitleAndDate(String title, Date date);
 }
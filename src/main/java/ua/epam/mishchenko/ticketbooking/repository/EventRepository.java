@@ -1,20 +1,73 @@
 package ua.epam.mishchenko.ticketbooking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.TitleCountDto;
 import ua.epam.mishchenko.ticketbooking.model.Event;
 
+import javax.persistence.QueryHint;
 import java.util.Date;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+import static ua.epam.mishchenko.ticketbooking.config.QueryCacheRegions.EVENTS;
 
 @Repository
 public interface EventRepository extends CrudRepository<Event, Long> {
 
-    Page<EventDto> getAllByTitle(Pageable pageable, String title);
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = EVENTS)})
+    @Query("SELECT new ua.epam.mishchenko.ticketbooking.dto.EventDto(e.id, e.title, e.date, e.ticketPrice) " +
+            "FROM Event e WHERE e.title = :title ORDER BY e.date, e.id")
+    List<EventDto> getFirstByTitle(@Param("title") String title, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = EVENTS)})
+    @Query("SELECT new ua.epam.mishchenko.ticketbooking.dto.EventDto(e.id, e.title, e.date, e.ticketPrice) " +
+            "FROM Event e WHERE e.title = :title AND e.date >= :date " +
+            "AND (e.date > :date OR (e.date = :date AND e.id > :id)) " +
+            "ORDER BY e.date, e.id")
+    List<EventDto> getNextByTitle(@Param("title") String title, @Param("date") Date date, @Param("id") Long id,
+                                  Pageable pageable);
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = EVENTS)})
+    @Query("SELECT new ua.epam.mishchenko.ticketbooking.dto.EventDto(e.id, e.title, e.date, e.ticketPrice) " +
+            "FROM Event e WHERE e.date >= :from AND e.date < :to ORDER BY e.date, e.id")
+    List<EventDto> getFirstBetween(@Param("from") Date from, @Param("to") Date to, Pageable pageable);
 
-    Page<EventDto> getAllByDate(Pageable pageable, Date day);
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = EVENTS)})
+    @Query("SELECT new ua.epam.mishchenko.ticketbooking.dto.EventDto(e.id, e.title, e.date, e.ticketPrice) " +
+            "FROM Event e WHERE e.date >= :from AND e.date < :to AND e.date >= :date " +
+            "AND (e.date > :date OR (e.date = :date AND e.id > :id)) ORDER BY e.date, e.id")
+    List<EventDto> getNextBetween(@Param("from") Date from, @Param("to") Date to, @Param("date") Date date,
+                                  @Param("id") Long id, Pageable pageable);
 
     Boolean existsByTitleAndDate(String title, Date date);
+
+    @Query(value = "SELECT * FROM events e " +
+            "WHERE to_tsvector('simple', e.title) @@ plainto_tsquery('simple', :text) " +
+            "ORDER BY ts_rank(to_tsvector('simple', e.title), plainto_tsquery('simple', :text)) DESC, e.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Event> searchByTitle(@Param("text") String text, @Param("limit") int limit);
+
+    @Query("SELECT new ua.epam.mishchenko.ticketbooking.dto.TitleCountDto(e.title, count(e)) " +
+            "FROM Event e GROUP BY e.title")
+    List<TitleCountDto> countTitles();
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "event_sales"))
+    @Query(value = "UPDATE event_sales s SET sold = s.sold + :count FROM event_capacities c " +
+            "WHERE c.event_id = s.event_id AND c.category = s.category " +
+            "AND s.event_id = :eventId AND s.category = :category AND s.sold + :count <= c.capacity",
+            nativeQuery = true)
+    int incrementSold(@Param("eventId") Long eventId, @Param("category") String category, @Param("count") int count);
 }
@@ -0,0 +1,88 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.model.EventStatsMongo;
+import ua.epam.mishchenko.ticketbooking.model.TicketMongo;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class EventStatsCustomMongoRepository {
+
+    private static final String EVENT_ID = "eventId";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Finds the statistics of the event.
+     *
+     * @param eventId the event id
+     * @return the rows in category order
+     */
+    public List<EventStatsMongo> findByEventId(String eventId) {
+        Query query = Query.query(Criteria.where(EVENT_ID).is(eventId)).with(Sort.by("category"));
+        return mongoTemplate.find(query, EventStatsMongo.class);
+    }
+
+    /**
+     * Recomputes the statistics of the events on the server. The tickets of the events are grouped by
+     * category and merged into the view, the capacity is looked up in the event. Rows of categories
+     * without tickets any more are not written by the merge and are removed afterwards.
+     *
+     * @param eventIds the event ids
+     */
+    public void merge(Collection<String> eventIds) {
+        Date refreshedAt = new Date();
+        List<ObjectId> ids = eventIds.stream().map(ObjectId::new).toList();
+        String statsCollection = mongoTemplate.getCollectionName(EventStatsMongo.class);
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(TicketMongo.class))
+                .aggregate(List.of(
+                        new Document("$match", new Document("event", new Document("$in", ids))),
+                        new Document("$group", new Document("_id",
+                                new Document("event", "$event").append("category", "$category"))
+                                .append("sold", new Document("$sum", 1))
+                                .append("revenue", new Document("$sum", "$eventHeader.ticketPrice"))),
+                        new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(EventMongo.class))
+                                .append("localField", "_id.event")
+                                .append("foreignField", "_id")
+                                .append("as", "event")),
+                        new Document("$project", new Document("_id", new Document("$concat",
+                                List.of(new Document("$toString", "$_id.event"), ":", "$_id.category")))
+                                .append(EVENT_ID, new Document("$toString", "$_id.event"))
+                                .append("category", "$_id.category")
+                                .append("sold", 1)
+                                .append("capacity", capacityOfCategory())
+                                .append("revenue", 1)
+                                .append("refreshedAt", new Document("$literal", refreshedAt))),
+                        new Document("$merge", new Document("into", statsCollection)
+                                .append("on", "_id")
+                                .append("whenMatched", "replace")
+                                .append("whenNotMatched", "insert"))))
+                .toCollection();
+        mongoTemplate.remove(Query.query(Criteria.where(EVENT_ID).in(eventIds).and("refreshedAt").lt(refreshedAt)),
+                EventStatsMongo.class);
+    }
+
+    /**
+     * The capacity map of the event is keyed by category, so the entry is found among its key-value pairs.
+     */
+    private static Document capacityOfCategory() {
+        Document capacities = new Document("$objectToArray", new Document("$ifNull",
+                List.of(new Document("$arrayElemAt", List.of("$event.capacity", 0)), new Document())));
+        Document ofCategory = new Document("$eq", List.of("$$this.k", "$_id.category"));
+        Document entry = new Document("$arrayElemAt", List.of(new Document("$filter",
+                new Document("input", capacities).append("cond", ofCategory)), 0));
+        return new Document("$let", new Document("vars", new Document("entry", entry)).append("in", "$$entry.v"));
+    }
+}
@@ -0,0 +1,114 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import ua.epam.mishchenko.ticketbooking.dto.LedgerTailDto;
+import ua.epam.mishchenko.ticketbooking.model.LedgerEntryMongo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class LedgerCustomMongoRepository {
+
+    private static final String USER_ID = "userId";
+
+    private static final String SEQ = "seq";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Appends the entry unless another entry of the user already took its sequence number.
+     *
+     * @param entry the entry
+     * @return true if the entry was appended
+     */
+    public boolean append(LedgerEntryMongo entry) {
+        try {
+            mongoTemplate.insert(entry);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends the entries by one unordered bulk insert.
+     *
+     * @param entries the entries
+     * @return the entries which were not appended because their sequence numbers were taken
+     */
+    public List<LedgerEntryMongo> appendAll(List<LedgerEntryMongo> entries) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LedgerEntryMongo.class);
+        bulk.insert(entries);
+        try {
+            bulk.execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            List<LedgerEntryMongo> rejected = new ArrayList<>();
+            e.getErrors().forEach(error -> rejected.add(entries.get(error.getIndex())));
+            return rejected;
+        }
+    }
+
+    /**
+     * Sums the entries of the user after the sequence number by a range scan of the (userId, seq) index.
+     * The ledger compacts a tail longer than its configured maximum, see {@code AccountLedger}, so the scan
+     * reads about that many entries at most.
+     *
+     * @param userId the user id
+     * @param seq    the sequence number
+     * @return the sum, the last sequence number and the number of the entries
+     */
+    public LedgerTailDto sumAfter(String userId, long seq) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(USER_ID).is(userId).and(SEQ).gt(seq)),
+                Aggregation.group(USER_ID).sum("amount").as("amount").max(SEQ).as("lastSeq").count().as("count"));
+        LedgerTailDto tail = mongoTemplate.aggregate(aggregation, LedgerEntryMongo.class, LedgerTailDto.class)
+                .getUniqueMappedResult();
+        return tail == null ? LedgerTailDto.empty(seq) : tail;
+    }
+
+    /**
+     * Gets the last sequence numbers of the users. Every user is matched by a range of the (userId, seq)
+     * index after the sequence number of its snapshot, so only the entries not compacted yet are read.
+     *
+     * @param snapshotSeqs the sequence numbers of the snapshots by user id
+     * @return the last sequence numbers by user id, the snapshot one for users without later entries
+     */
+    public Map<String, Long> findLastSeqs(Map<String, Long> snapshotSeqs) {
+        Map<String, Long> lastSeqs = new HashMap<>(snapshotSeqs);
+        Criteria[] tails = snapshotSeqs.entrySet().stream()
+                .map(snapshot -> Criteria.where(USER_ID).is(snapshot.getKey()).and(SEQ).gt(snapshot.getValue()))
+                .toArray(Criteria[]::new);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(new Criteria().orOperator(tails)),
+                Aggregation.group(USER_ID).max(SEQ).as("lastSeq"));
+        mongoTemplate.aggregate(aggregation, LedgerEntryMongo.class, Document.class).getMappedResults()
+                .forEach(result -> lastSeqs.put(result.getString("_id"), result.getLong("lastSeq")));
+        return lastSeqs;
+    }
+
+    /**
+     * Gets ids of the users having entries appended since the date.
+     *
+     * @param since the date
+     * @return the user ids
+     */
+    public List<String> findUserIdsSince(Date since) {
+        return mongoTemplate.findDistinct(Query.query(Criteria.where("createdAt").gte(since)), USER_ID,
+                LedgerEntryMongo.class, String.class);
+    }
+}
@@ -0,0 +1,96 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.SeatMongo;
+import ua.epam.mishchenko.ticketbooking.model.SeatStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class SeatCustomMongoRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    public void createSeats(String eventId, Map<Category, Integer> capacity) {
+        List<SeatMongo> seats = new ArrayList<>();
+        capacity.forEach((category, count) -> {
+            for (int place = 1; place <= count; place++) {
+                seats.add(new SeatMongo(eventId, place, category, SeatStatus.FREE));
+            }
+        });
+        if (seats.isEmpty()) {
+            return;
+        }
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeatMongo.class)
+                .insert(seats)
+                .execute();
+    }
+
+    public boolean claimSeat(String eventId, int place, Category category) {
+        return updateStatus(eventId, place, category, SeatStatus.FREE, SeatStatus.BOOKED);
+    }
+
+    public boolean releaseSeat(String eventId, int place, Category category) {
+        return updateStatus(eventId, place, category, SeatStatus.BOOKED, SeatStatus.FREE);
+    }
+
+    public void releaseSeats(Collection<CanceledTicketDto> tickets) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeatMongo.class);
+        tickets.forEach(ticket -> bulkOperations.updateOne(
+                seatQuery(ticket.getEventId(), ticket.getPlace(), ticket.getCategory(), SeatStatus.BOOKED),
+                Update.update("status", SeatStatus.FREE)));
+        bulkOperations.execute();
+    }
+
+    private boolean updateStatus(String eventId, int place, Category category, SeatStatus from, SeatStatus to) {
+        return mongoTemplate.updateFirst(seatQuery(eventId, place, category, from), Update.update("status", to),
+                SeatMongo.class).getModifiedCount() == 1;
+    }
+
+    private Query seatQuery(String eventId, int place, Category category, SeatStatus status) {
+        return Query.query(Criteria.where("eventId").is(eventId)
+                .and("category").is(category)
+                .and("place").is(place)
+                .and("status").is(status));
+    }
+
+    public long countSeats(String eventId, Category category, SeatStatus status) {
+        return mongoTemplate.count(seatsQuery(eventId, category, status), SeatMongo.class);
+    }
+
+    public List<Integer> findPlaces(String eventId, Category category, SeatStatus status, int limit) {
+        Query query = seatsQuery(eventId, category, status)
+                .with(Sort.by("place"))
+                .limit(limit);
+        query.fields().include("place").exclude("_id");
+        return mongoTemplate.find(query, SeatMongo.class).stream()
+                .map(SeatMongo::getPlace)
+                .toList();
+    }
+
+    public void deleteSeats(String eventId) {
+        mongoTemplate.remove(Query.query(Criteria.where("eventId").is(eventId)), SeatMongo.class);
+    }
+
+    private Query seatsQuery(String eventId, Category category, SeatStatus status) {
+        return Query.query(Criteria.where("eventId").is(eventId)
+                .and("category").is(category)
+                .and("status").is(status));
+    }
+}
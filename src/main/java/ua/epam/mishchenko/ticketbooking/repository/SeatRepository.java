@@ -0,0 +1,56 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.Seat;
+import ua.epam.mishchenko.ticketbooking.model.SeatStatus;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+@Repository
+public interface SeatRepository extends CrudRepository<Seat, Long> {
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "seats"))
+    @Query(value = "INSERT INTO seats (event_id, place, category, status) " +
+            "SELECT :eventId, place, :category, 'FREE' FROM generate_series(1, :capacity) AS place",
+            nativeQuery = true)
+    int createSeats(@Param("eventId") Long eventId,
+                    @Param("category") String category,
+                    @Param("capacity") int capacity);
+
+    @Transactional
+    @Modifying
+    @Query("update Seat s set s.status = :to " +
+            "where s.event.id = :eventId and s.category = :category and s.place = :place and s.status = :from")
+    int updateStatus(@Param("eventId") Long eventId,
+                     @Param("place") int place,
+                     @Param("category") Category category,
+                     @Param("from") SeatStatus from,
+                     @Param("to") SeatStatus to);
+
+    long countByEventIdAndCategoryAndStatus(Long eventId, Category category, SeatStatus status);
+
+    @Query("select s.place from Seat s " +
+            "where s.event.id = :eventId and s.category = :category and s.status = :status order by s.place")
+    List<Integer> findPlaces(@Param("eventId") Long eventId,
+                             @Param("category") Category category,
+                             @Param("status") SeatStatus status,
+                             Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Seat s where s.event.id = :eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
+}
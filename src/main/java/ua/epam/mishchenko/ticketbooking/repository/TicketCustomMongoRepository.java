@@ -1,51 +1,249 @@
 package ua.epam.mishchenko.ticketbooking.repository;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.BasicUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
+import ua.epam.mishchenko.ticketbooking.dto.BookingTimeDto;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
 import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.EventHeaderMongo;
 import ua.epam.mishchenko.ticketbooking.model.EventMongo;
 import ua.epam.mishchenko.ticketbooking.model.TicketMongo;
-import ua.epam.mishchenko.ticketbooking.model.UserMongo;
+import ua.epam.mishchenko.ticketbooking.utils.PlaceBucket;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class TicketCustomMongoRepository {
 
+    private static final String CANCELLATION_ID = "cancellationId";
+
+    private static final String EVENT = "event";
+
+    private static final String HEADER = "eventHeader";
+
     private final TicketMongoRepository ticketRepository;
     private final EventMongoRepository eventRepository;
-    private final UserMongoRepository userRepository;
+    private final MongoTemplate mongoTemplate;
 
-    public Page<TicketDto> getAllByEventId(Pageable pageable, String eventId) {
-        EventMongo event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new IllegalArgumentException("Event does not exist for id: " + eventId));
+    /**
+     * Gets tickets of the event ordered by id, starting after the ticket id. The tickets carry the header
+     * of their event, so the slice is one indexed query and the event is not read.
+     *
+     * @param eventId the event id
+     * @param afterId the id of the last ticket of the previous slice
+     * @param limit   the maximum number of tickets
+     * @return the tickets
+     */
+    public List<TicketDto> getAllByEventId(String eventId, String afterId, int limit) {
+        return findTickets(new Document(EVENT, new ObjectId(eventId)), afterId, limit);
+    }
 
-        Page<TicketMongo> pageResult = ticketRepository.findByEvent(event, pageable);
-        List<TicketDto> dtosList = pageResult.getContent().stream()
-                .map(ticket -> TicketDto.fromMongoTicket(ticket, event,  ticket.getUser()))
-                .toList();
+    /**
+     * Gets tickets of the user ordered by id, starting after the ticket id, with the header of their events
+     * read from the tickets by the same indexed query.
+     *
+     * @param userId  the user id
+     * @param afterId the id of the last ticket of the previous slice
+     * @param limit   the maximum number of tickets
+     * @return the tickets
+     */
+    public List<TicketDto> getAllByUserId(String userId, String afterId, int limit) {
+        return findTickets(new Document("user._id", new ObjectId(userId)), afterId, limit);
+    }
+
+    private List<TicketDto> findTickets(Document filter, String afterId, int limit) {
+        filter.append("_id", new Document("$gt", new ObjectId(afterId)));
+        return findTickets(new BasicQuery(filter).with(Sort.by("_id")).limit(limit));
+    }
+
+    /**
+     * Gets tickets of the places in the bucket ordered by place and category, as one range scan
+     * of the (event, place, category) index.
+     *
+     * @param eventId the event id
+     * @param bucket  the place bucket
+     * @return the tickets
+     */
+    public List<TicketDto> getAllByEventIdInBucket(String eventId, PlaceBucket bucket) {
+        Document filter = new Document(EVENT, new ObjectId(eventId))
+                .append("place", new Document("$gte", bucket.getFirstPlace()).append("$lte", bucket.getLastPlace()));
+        return findTickets(new BasicQuery(filter).with(Sort.by("place", "category")));
+    }
 
-        return new PageImpl<>(dtosList, pageable, pageResult.getTotalElements());
+    /**
+     * Gets the events of the tickets booked since the time. A ticket id is created when the ticket is booked,
+     * so the booking time is read from the id and the tickets are found by a range of the id index.
+     *
+     * @param since the start of the period
+     * @return the bookings
+     */
+    public List<BookingTimeDto> findBookingsSince(Date since) {
+        Query query = new BasicQuery(new Document("_id", new Document("$gte", new ObjectId(since, 0))));
+        query.fields().include(EVENT);
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(TicketMongo.class))
+                .stream()
+                .map(ticket -> new BookingTimeDto(ticket.getObjectId(EVENT).toHexString(),
+                        ticket.getObjectId("_id").getDate()))
+                .toList();
     }
 
-    public Page<TicketDto> getAllByUserId(Pageable pageable, String userId) {
-        UserMongo user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User does not exist for id: " + userId));
-        Page<TicketMongo> pageResult = ticketRepository.findByUser(user, pageable);
-        List<TicketDto> dtosList = pageResult.getContent().stream()
-                .map(ticket -> TicketDto.fromMongoTicket(ticket, ticket.getEvent(),  ticket.getUser()))
+    private List<TicketDto> findTickets(Query query) {
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(TicketMongo.class))
+                .stream()
+                .map(this::toTicketWithEventHeader)
                 .toList();
+    }
+
+    private TicketDto toTicketWithEventHeader(Document document) {
+        ObjectId eventId = document.getObjectId(EVENT);
+        TicketMongo ticket = readTicket(document);
+        EventHeaderMongo header = ticket.getEventHeader();
+        EventMongo event = new EventMongo();
+        event.setId(eventId == null ? null : eventId.toHexString());
+        if (header != null) {
+            event.setTitle(header.getTitle());
+            event.setDate(header.getDate());
+            event.setTicketPrice(header.getTicketPrice());
+        }
+        return TicketDto.fromMongoTicket(ticket, event, ticket.getUser());
+    }
 
-        return new PageImpl<>(dtosList, pageable, pageResult.getTotalElements());    }
+    /**
+     * Reads a ticket without its event reference, which would be resolved by loading the whole event.
+     */
+    private TicketMongo readTicket(Document document) {
+        document.remove(EVENT);
+        return mongoTemplate.getConverter().read(TicketMongo.class, document);
+    }
+
+    /**
+     * Inserts the tickets missing from the collection by one unordered bulk write. A ticket is identified
+     * by its event, place and category, so writing the same tickets again changes nothing.
+     *
+     * @param tickets the tickets with their events and users
+     * @return the number of inserted tickets
+     */
+    public int upsertTickets(List<TicketMongo> tickets) {
+        if (tickets.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TicketMongo.class);
+        for (TicketMongo ticket : tickets) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(ticket, document);
+            document.remove("_id");
+            document.remove("_class");
+            Query key = new BasicQuery(new Document(EVENT, new ObjectId(ticket.getEvent().getId()))
+                    .append("place", ticket.getPlace())
+                    .append("category", ticket.getCategory().name()));
+            bulk.upsert(key, new BasicUpdate(new Document("$setOnInsert", document)));
+        }
+        return bulk.execute().getUpserts().size();
+    }
+
+    /**
+     * Sets the event header of the tickets which do not have one yet.
+     *
+     * @param eventId the event id
+     * @param header  the event header
+     * @return the number of updated tickets
+     */
+    public long setMissingEventHeader(String eventId, EventHeaderMongo header) {
+        Query query = new BasicQuery(new Document(EVENT, new ObjectId(eventId))
+                .append(HEADER, new Document("$exists", false)));
+        return mongoTemplate.updateMulti(query, Update.update(HEADER, header), TicketMongo.class).getModifiedCount();
+    }
+
+    /**
+     * Gets ids of the events having tickets without the event header.
+     *
+     * @return the event ids
+     */
+    public List<String> findEventIdsWithoutHeader() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(TicketMongo.class))
+                .distinct(EVENT, new Document(HEADER, new Document("$exists", false)), ObjectId.class)
+                .map(ObjectId::toHexString)
+                .into(new ArrayList<>());
+    }
 
     public Boolean existsByEventAndPlaceAndCategory(String eventId, Integer place, Category category) {
-        EventMongo event = eventRepository.findById(eventId)
+        EventMongo event = eventRepository.findDetailsById(eventId)
                 .orElseThrow(() -> new IllegalArgumentException("Event does not exist for id: " + eventId));
         return ticketRepository.existsByEventAndPlaceAndCategory(event, place, category);
     }
+
+    /**
+     * Removes the tickets. The tickets are first marked with a cancellation id by one conditional update,
+     * so a ticket canceled concurrently is returned to exactly one caller and is refunded only once.
+     *
+     * @param ticketIds the ticket ids
+     * @return the removed tickets with the price of their events
+     */
+    public List<CanceledTicketDto> cancelTickets(Collection<String> ticketIds) {
+        String cancellationId = new ObjectId().toHexString();
+        Query notCanceled = Query.query(Criteria.where("_id").in(ticketIds).and(CANCELLATION_ID).exists(false));
+        if (mongoTemplate.updateMulti(notCanceled, Update.update(CANCELLATION_ID, cancellationId), TicketMongo.class)
+                .getModifiedCount() == 0) {
+            return List.of();
+        }
+
+        Query marked = Query.query(Criteria.where(CANCELLATION_ID).is(cancellationId));
+        marked.fields().include(EVENT, "user._id", "place", "category");
+        List<Document> tickets = mongoTemplate.find(marked, Document.class,
+                mongoTemplate.getCollectionName(TicketMongo.class));
+        Map<String, BigDecimal> prices = getTicketPrices(tickets);
+
+        mongoTemplate.remove(Query.query(Criteria.where(CANCELLATION_ID).is(cancellationId)), TicketMongo.class);
+        return tickets.stream()
+                .map(ticket -> toCanceledTicket(ticket, prices))
+                .toList();
+    }
+
+    private Map<String, BigDecimal> getTicketPrices(List<Document> tickets) {
+        Set<ObjectId> eventIds = tickets.stream()
+                .map(ticket -> ticket.getObjectId(EVENT))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Query query = Query.query(Criteria.where("_id").in(eventIds));
+        query.fields().include("ticketPrice");
+        return mongoTemplate.find(query, EventMongo.class).stream()
+                .collect(Collectors.toMap(EventMongo::getId, EventMongo::getTicketPrice));
+    }
+
+    private CanceledTicketDto toCanceledTicket(Document ticket, Map<String, BigDecimal> prices) {
+        String eventId = ticket.getObjectId(EVENT).toHexString();
+        String userId = Optional.ofNullable(ticket.get("user", Document.class))
+                .map(user -> user.get("_id"))
+                .map(id -> id instanceof ObjectId ? ((ObjectId) id).toHexString() : String.valueOf(id))
+                .orElse(null);
+        return new CanceledTicketDto(
+                ticket.getObjectId("_id").toHexString(),
+                userId,
+                eventId,
+                ticket.getInteger("place"),
+                Category.valueOf(ticket.getString("category")),
+                prices.getOrDefault(eventId, BigDecimal.ZERO)
+        );
+    }
 }
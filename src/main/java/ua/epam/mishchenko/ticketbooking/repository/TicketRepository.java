@@ -1,18 +1,21 @@
 package ua.epam.mishchenko.ticketbooking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import ua.epam.mishchenko.ticketbooking.model.Category;
 import ua.epam.mishchenko.ticketbooking.model.Ticket;
 
+import java.util.List;
+
 @Repository
-public interface TicketRepository extends CrudRepository<Ticket, Long> {
+public interface TicketRepository extends CrudRepository<Ticket, Long>, TicketRepositoryCustom {
+
+    List<Ticket> getAllByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Pageable pageable);
 
-    Page<Ticket> getAllByUserId(Pageable pageable, Long userId);
+    List<Ticket> getAllByEventIdAndIdGreaterThanOrderByIdAsc(Long eventId, Long id, Pageable pageable);
 
-    Page<Ticket> getAllByEventId(Pageable pageable, Long eventId);
+    List<Ticket> getAllByEventIdAndPlaceBetweenOrderByPlaceAsc(Long eventId, Integer firstPlace, Integer lastPlace);
 
     Boolean existsByEventIdAndPlaceAndCategory(Long eventId, Integer place, Category category);
 }
@@ -0,0 +1,45 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import ua.epam.mishchenko.ticketbooking.dto.BookingTimeDto;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface TicketRepositoryCustom {
+
+    /**
+     * Deletes the tickets, refunds their price to the user accounts and frees their seats in one statement.
+     *
+     * @param ticketIds the ticket ids
+     * @return the canceled tickets
+     */
+    List<CanceledTicketDto> cancelAllByIdIn(Collection<Long> ticketIds);
+
+    /**
+     * Finds the events and creation times of the tickets created since the time.
+     *
+     * @param since the start of the period
+     * @return the bookings
+     */
+    List<BookingTimeDto> findBookingsSince(Date since);
+
+    /**
+     * Finds the rows of the event in the event_stats table.
+     *
+     * @param eventId the event id
+     * @return the statistics in category order
+     */
+    List<EventStatsDto> findEventStats(Long eventId);
+
+    /**
+     * Recomputes the event_stats rows of the events from their tickets in one statement. The rows are
+     * upserted, and rows of categories without tickets any more are deleted, so the cost depends on
+     * the tickets of the events only.
+     *
+     * @param eventIds the event ids
+     */
+    void refreshEventStats(Collection<Long> eventIds);
+}
@@ -0,0 +1,146 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import org.hibernate.annotations.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+import ua.epam.mishchenko.ticketbooking.dto.BookingTimeDto;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.Ticket;
+import ua.epam.mishchenko.ticketbooking.model.UserAccount;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public class TicketRepositoryImpl implements TicketRepositoryCustom {
+
+    private static final String CANCEL_TICKETS_SQL = "WITH canceled AS (" +
+            "    DELETE FROM tickets t WHERE t.id IN (:ids)" +
+            "    RETURNING t.id, t.user_id, t.event_id, t.place, t.category" +
+            "), priced AS (" +
+            "    SELECT c.id, c.user_id, c.event_id, c.place, c.category, e.ticket_price" +
+            "    FROM canceled c JOIN events e ON e.id = c.event_id" +
+            "), refunded AS (" +
+            "    UPDATE user_accounts a SET money = a.money + r.amount" +
+            "    FROM (SELECT user_id, SUM(ticket_price) AS amount FROM priced GROUP BY user_id) r" +
+            "    WHERE a.user_id = r.user_id" +
+            "), released AS (" +
+            "    UPDATE seats s SET status = 'FREE'" +
+            "    FROM priced p" +
+            "    WHERE s.event_id = p.event_id AND s.category = p.category AND s.place = p.place" +
+            "      AND s.status = 'BOOKED'" +
+            "), unsold AS (" +
+            "    UPDATE event_sales s SET sold = GREATEST(s.sold - u.count, 0)" +
+            "    FROM (SELECT event_id, category, COUNT(*) AS count FROM priced GROUP BY event_id, category) u" +
+            "    WHERE s.event_id = u.event_id AND s.category = u.category" +
+            ") " +
+            "SELECT id, user_id, event_id, place, category, ticket_price FROM priced";
+
+    private static final String FIND_BOOKINGS_SINCE_SQL = "SELECT event_id, created_at FROM tickets " +
+            "WHERE created_at >= :since";
+
+    private static final String FIND_EVENT_STATS_SQL = "SELECT event_id, category, sold, capacity, revenue " +
+            "FROM event_stats WHERE event_id = :eventId ORDER BY category";
+
+    private static final String REFRESH_EVENT_STATS_SQL = "WITH fresh AS (" +
+            "    SELECT t.event_id, t.category, COUNT(*) AS sold, c.capacity, SUM(e.ticket_price) AS revenue" +
+            "    FROM tickets t" +
+            "    JOIN events e ON e.id = t.event_id" +
+            "    LEFT JOIN event_capacities c ON c.event_id = t.event_id AND c.category = t.category" +
+            "    WHERE t.event_id IN (:ids)" +
+            "    GROUP BY t.event_id, t.category, c.capacity" +
+            "), upserted AS (" +
+            "    INSERT INTO event_stats (event_id, category, sold, capacity, revenue)" +
+            "    SELECT event_id, category, sold, capacity, revenue FROM fresh" +
+            "    ON CONFLICT (event_id, category) DO UPDATE" +
+            "    SET sold = EXCLUDED.sold, capacity = EXCLUDED.capacity, revenue = EXCLUDED.revenue" +
+            ") " +
+            "DELETE FROM event_stats s WHERE s.event_id IN (:ids) AND NOT EXISTS (" +
+            "    SELECT 1 FROM fresh f WHERE f.event_id = s.event_id AND f.category = s.category)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CanceledTicketDto> cancelAllByIdIn(Collection<Long> ticketIds) {
+        List<Object[]> rows = entityManager.createNativeQuery(CANCEL_TICKETS_SQL)
+                .setParameter("ids", ticketIds)
+                .getResultList();
+        List<CanceledTicketDto> canceledTickets = rows.stream()
+                .map(this::toCanceledTicket)
+                .toList();
+        evictCachedEntities(canceledTickets);
+        return canceledTickets;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<BookingTimeDto> findBookingsSince(Date since) {
+        List<Object[]> rows = entityManager.createNativeQuery(FIND_BOOKINGS_SINCE_SQL)
+                .setParameter("since", since)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new BookingTimeDto(String.valueOf(row[0]), (Date) row[1]))
+                .toList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<EventStatsDto> findEventStats(Long eventId) {
+        List<Object[]> rows = entityManager.createNativeQuery(FIND_EVENT_STATS_SQL)
+                .setParameter("eventId", eventId)
+                .getResultList();
+        return rows.stream()
+                .map(this::toEventStats)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public void refreshEventStats(Collection<Long> eventIds) {
+        entityManager.createNativeQuery(REFRESH_EVENT_STATS_SQL)
+                .setParameter("ids", eventIds)
+                .setHint(QueryHints.NATIVE_SPACES, "event_stats")
+                .executeUpdate();
+    }
+
+    private EventStatsDto toEventStats(Object[] row) {
+        return new EventStatsDto(
+                String.valueOf(row[0]),
+                Category.valueOf((String) row[1]),
+                ((Number) row[2]).longValue(),
+                row[3] == null ? null : ((Number) row[3]).intValue(),
+                (BigDecimal) row[4]
+        );
+    }
+
+    private CanceledTicketDto toCanceledTicket(Object[] row) {
+        return new CanceledTicketDto(
+                String.valueOf(row[0]),
+                row[1] == null ? null : String.valueOf(row[1]),
+                String.valueOf(row[2]),
+                ((Number) row[3]).intValue(),
+                Category.valueOf((String) row[4]),
+                (BigDecimal) row[5]
+        );
+    }
+
+    /**
+     * The statement bypasses Hibernate, so the second level cache has to forget the touched rows.
+     *
+     * @param canceledTickets the canceled tickets
+     */
+    private void evictCachedEntities(List<CanceledTicketDto> canceledTickets) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        canceledTickets.forEach(ticket -> cache.evict(Ticket.class, Long.parseLong(ticket.getTicketId())));
+        if (!canceledTickets.isEmpty()) {
+            cache.evict(UserAccount.class);
+        }
+    }
+}
@@ -2,31 +2,81 @@ package ua.epam.mishchenko.ticketbooking.repository;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.aggregation.Aggregation;
-import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
+import ua.epam.mishchenko.ticketbooking.coherence.WriterStamp;
 import ua.epam.mishchenko.ticketbooking.model.UserAccountMongo;
+import ua.epam.mishchenko.ticketbooking.model.UserMongo;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class UserAccountCustomMongoRepository {
 
+    private static final String MONEY = "userAccount.money";
+
+    private static final String LEDGER_SEQ = "userAccount.ledgerSeq";
+
     private final MongoTemplate mongoTemplate;
 
+    /**
+     * Finds the balance snapshot of the user by a point lookup on the id reading only the account fields,
+     * a user without an account has an empty snapshot.
+     *
+     * @param userId the user id
+     * @return the snapshot or empty if the user does not exist
+     */
     public Optional<UserAccountMongo> findByUserId(String userId) {
-        Aggregation agg = Aggregation.newAggregation(
-                Aggregation.match(Criteria.where("_id").is(userId)),
-                Aggregation.project("userAccount.money")
-        );
+        return Optional.ofNullable(mongoTemplate.findOne(accountsOf(Criteria.where("_id").is(userId)), UserMongo.class))
+                .map(UserAccountCustomMongoRepository::snapshotOf);
+    }
 
-        AggregationResults<UserAccountMongo> results =
-                mongoTemplate.aggregate(agg, "users", UserAccountMongo.class);
+    /**
+     * Finds the balance snapshots of many users by one lookup on the ids.
+     *
+     * @param userIds the user ids
+     * @return the snapshots by user id, users which do not exist are left out
+     */
+    public Map<String, UserAccountMongo> findByUserIds(Collection<String> userIds) {
+        return mongoTemplate.find(accountsOf(Criteria.where("_id").in(userIds)), UserMongo.class).stream()
+                .collect(Collectors.toMap(UserMongo::getId, UserAccountCustomMongoRepository::snapshotOf));
+    }
 
-        UserAccountMongo userAccount = results.getUniqueMappedResult();
+    /**
+     * Adds the sum of the ledger entries after the snapshot sequence number to the snapshot, only if the
+     * snapshot was not moved on meanwhile. Accounts without a sequence number are at the sequence number 0.
+     *
+     * @param userId  the user id
+     * @param fromSeq the sequence number of the snapshot
+     * @param toSeq   the sequence number of the last added entry
+     * @param amount  the sum of the entries
+     * @return true if the snapshot was moved on
+     */
+    public boolean addToSnapshot(String userId, long fromSeq, long toSeq, BigDecimal amount) {
+        Criteria snapshot = fromSeq == 0
+                ? Criteria.where(LEDGER_SEQ).in(0L, null)
+                : Criteria.where(LEDGER_SEQ).is(fromSeq);
+        Query query = Query.query(Criteria.where("_id").is(userId).andOperator(snapshot));
+        Update update = WriterStamp.stamp(new Update().inc(MONEY, amount).set(LEDGER_SEQ, toSeq));
+        return mongoTemplate.updateFirst(query, update, UserMongo.class).getModifiedCount() == 1;
+    }
+
+    private static Query accountsOf(Criteria criteria) {
+        Query query = Query.query(criteria);
+        query.fields().include(MONEY, LEDGER_SEQ);
+        return query;
+    }
 
-        return Optional.ofNullable(userAccount);
+    private static UserAccountMongo snapshotOf(UserMongo user) {
+        return Optional.ofNullable(user.getUserAccount())
+                .filter(account -> account.getMoney() != null)
+                .orElseGet(() -> new UserAccountMongo(BigDecimal.ZERO, 0));
     }
 }
@@ -1,13 +1,43 @@
 package ua.epam.mishchenko.ticketbooking.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ua.epam.mishchenko.ticketbooking.model.UserAccount;
 
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+import static ua.epam.mishchenko.ticketbooking.config.QueryCacheRegions.USER_ACCOUNTS;
+
 @Repository
-public interface UserAccountRepository extends CrudRepository<UserAccount, Long> {
+public interface UserAccountRepository extends CrudRepository<UserAccount, Long>, UserAccountRepositoryCustom {
 
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = USER_ACCOUNTS)})
     Optional<UserAccount> findByUserId(Long userId);
+
+    @Transactional
+    @Query(value = "INSERT INTO user_accounts (user_id, money) " +
+            "SELECT u.id, :amount FROM users u WHERE u.id = :userId " +
+            "ON CONFLICT (user_id) DO UPDATE SET money = user_accounts.money + EXCLUDED.money " +
+            "RETURNING money",
+            nativeQuery = true)
+    Optional<BigDecimal> refill(@Param("userId") Long userId, @Param("amount") BigDecimal amount);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "user_accounts"))
+    @Query(value = "UPDATE user_accounts SET money = money - :amount " +
+            "WHERE user_id = :userId AND money >= :amount",
+            nativeQuery = true)
+    int debit(@Param("userId") Long userId, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,17 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+public interface UserAccountRepositoryCustom {
+
+    /**
+     * Adds the amounts to the accounts of the users by one statement per batch of users, accounts missing
+     * for existing users are created with the amount.
+     *
+     * @param amounts the amounts by user id
+     * @return the ids of the users whose accounts were refilled
+     */
+    Set<Long> refillAll(Map<Long, BigDecimal> amounts);
+}
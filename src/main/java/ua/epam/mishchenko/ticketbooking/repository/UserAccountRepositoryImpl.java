@@ -0,0 +1,65 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import org.hibernate.SessionFactory;
+import ua.epam.mishchenko.ticketbooking.config.QueryCacheRegions;
+import ua.epam.mishchenko.ticketbooking.model.UserAccount;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+public class UserAccountRepositoryImpl implements UserAccountRepositoryCustom {
+
+    /**
+     * The number of users refilled by one statement, two parameters per user stay well below
+     * the limit of bind parameters of a statement.
+     */
+    private static final int BATCH_SIZE = 5000;
+
+    private static final String REFILL_ALL_SQL = "INSERT INTO user_accounts (user_id, money) " +
+            "SELECT u.id, v.amount FROM (VALUES %s) AS v (user_id, amount) JOIN users u ON u.id = v.user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET money = user_accounts.money + EXCLUDED.money " +
+            "RETURNING user_id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Set<Long> refillAll(Map<Long, BigDecimal> amounts) {
+        List<Map.Entry<Long, BigDecimal>> credits = new ArrayList<>(amounts.entrySet());
+        Set<Long> refilled = new HashSet<>();
+        for (int from = 0; from < credits.size(); from += BATCH_SIZE) {
+            refilled.addAll(refill(credits.subList(from, Math.min(from + BATCH_SIZE, credits.size()))));
+        }
+        if (!refilled.isEmpty()) {
+            entityManager.getEntityManagerFactory().getCache().evict(UserAccount.class);
+            entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+                    .evictQueryRegion(QueryCacheRegions.USER_ACCOUNTS);
+        }
+        return refilled;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> refill(List<Map.Entry<Long, BigDecimal>> credits) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < credits.size(); i++) {
+            values.add("(?" + (2 * i + 1) + ", ?" + (2 * i + 2) + ")");
+        }
+        Query query = entityManager.createNativeQuery(String.format(REFILL_ALL_SQL, values));
+        for (int i = 0; i < credits.size(); i++) {
+            query.setParameter(2 * i + 1, credits.get(i).getKey());
+            query.setParameter(2 * i + 2, credits.get(i).getValue());
+        }
+        List<Number> userIds = query.getResultList();
+        return userIds.stream()
+                .map(Number::longValue)
+                .toList();
+    }
+}
@@ -0,0 +1,33 @@
+package ua.epam.mishchenko.ticketbooking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import ua.epam.mishchenko.ticketbooking.model.UserMongo;
+
+@Repository
+@RequiredArgsConstructor
+public class UserCustomMongoRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Finds the user with the email of the given one or inserts the given user, by one upsert on the unique
+     * email index, so concurrent calls get the same user.
+     *
+     * @param user the user to insert when no user has the email
+     * @return the stored user
+     */
+    public UserMongo findOrCreateByEmail(UserMongo user) {
+        Query query = Query.query(Criteria.where("email").is(user.getEmail()));
+        Update update = new Update()
+                .setOnInsert("name", user.getName())
+                .setOnInsert("userAccount", user.getUserAccount());
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), UserMongo.class);
+    }
+}
@@ -1,17 +1,17 @@
 package ua.epam.mishchenko.ticketbooking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import ua.epam.mishchenko.ticketbooking.model.UserMongo;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserMongoRepository extends MongoRepository<UserMongo, String> {
 
     Optional<UserMongo> getByEmail(String email);
 
-    Page<UserMongo> getAllByName(Pageable pageable, String name);
+    List<UserMongo> getAllByNameAndIdGreaterThanOrderByIdAsc(String name, String id, Pageable pageable);
 
     Boolean existsByEmail(String email);
 
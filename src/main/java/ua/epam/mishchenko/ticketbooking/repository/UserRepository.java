@@ -1,19 +1,26 @@
 package ua.epam.mishchenko.ticketbooking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import ua.epam.mishchenko.ticketbooking.model.User;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+import static ua.epam.mishchenko.ticketbooking.config.QueryCacheRegions.USERS;
+
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
 
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = USERS)})
     Optional<User> getByEmail(String email);
 
-    Page<User> getAllByName(Pageable pageable, String name);
+    List<User> getAllByNameAndIdGreaterThanOrderByIdAsc(String name, Long id, Pageable pageable);
 
     Boolean existsByEmail(String email);
 }
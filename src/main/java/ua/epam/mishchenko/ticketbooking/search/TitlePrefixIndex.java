@@ -0,0 +1,114 @@
+package ua.epam.mishchenko.ticketbooking.search;
+
+import org.springframework.stereotype.Component;
+import ua.epam.mishchenko.ticketbooking.dto.TitleCountDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Event titles for type-ahead. Titles are kept once per normalized form in a sorted map with the number
+ * of events having them, so the titles of a prefix are one contiguous range found in O(log n) and read
+ * in order. The titles are loaded on first use and then follow created, updated and deleted events.
+ */
+@Component
+public class TitlePrefixIndex {
+
+    private final ConcurrentSkipListMap<String, Title> titles = new ConcurrentSkipListMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * Suggests titles starting with the prefix, case and surrounding spaces are ignored.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum number of titles
+     * @param loader the loader of all titles from the event store
+     * @return the titles in alphabetical order
+     */
+    public List<String> suggest(String prefix, int limit, Supplier<Collection<TitleCountDto>> loader) {
+        load(loader);
+        String key = normalize(prefix);
+        List<String> suggestions = new ArrayList<>(Math.min(limit, 16));
+        if (key.isEmpty() || limit < 1) {
+            return suggestions;
+        }
+        for (Map.Entry<String, Title> entry : titles.tailMap(key).entrySet()) {
+            if (!entry.getKey().startsWith(key) || suggestions.size() == limit) {
+                break;
+            }
+            suggestions.add(entry.getValue().title);
+        }
+        return suggestions;
+    }
+
+    public void add(String title) {
+        if (loaded && title != null) {
+            titles.merge(normalize(title), new Title(title, 1), Title::plus);
+        }
+    }
+
+    public void remove(String title) {
+        if (loaded && title != null) {
+            titles.computeIfPresent(normalize(title), (key, value) -> value.count == 1 ? null : value.minusOne());
+        }
+    }
+
+    public void replace(String oldTitle, String newTitle) {
+        remove(oldTitle);
+        add(newTitle);
+    }
+
+    /**
+     * Loads the titles once. Changes made during the load are not applied, they only miss from suggestions.
+     */
+    private void load(Supplier<Collection<TitleCountDto>> loader) {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                Map<String, Title> loadedTitles = new HashMap<>();
+                for (TitleCountDto title : loader.get()) {
+                    loadedTitles.merge(normalize(title.getTitle()),
+                            new Title(title.getTitle(), title.getCount().intValue()), Title::plus);
+                }
+                titles.putAll(loadedTitles);
+                loaded = true;
+            }
+        }
+    }
+
+    private String normalize(String title) {
+        return title.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A title as first seen and the number of events with its normalized form.
+     */
+    private static class Title {
+
+        private final String title;
+
+        private final int count;
+
+        private Title(String title, int count) {
+            this.title = title;
+            this.count = count;
+        }
+
+        private Title plus(Title other) {
+            return new Title(title, count + other.count);
+        }
+
+        private Title minusOne() {
+            return new Title(title, count - 1);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ua.epam.mishchenko.ticketbooking.service;
 
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 
 import java.util.Date;
 import java.util.List;
@@ -23,20 +24,35 @@ public interface EventService {
      *
      * @param title    the title
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events by title
      */
-    List<EventDto> getEventsByTitle(String title, int pageSize, int pageNum);
+    SliceDto<EventDto> getEventsByTitle(String title, int pageSize, String cursor);
 
     /**
      * Gets events for day.
      *
      * @param day      the day
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events for day
      */
-    List<EventDto> getEventsForDay(Date day, int pageSize, int pageNum);
+    SliceDto<EventDto> getEventsForDay(Date day, int pageSize, String cursor);
+
+    /**
+     * Gets events between the dates ordered by date.
+     *
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @param pageSize the page size
+     * @param cursor   the continuation token of the previous slice or null for the first slice
+     * @return the events between the dates
+     */
+    SliceDto<EventDto> getEventsBetween(Date from, Date to, int pageSize, String cursor);
+
+    List<EventDto> searchEventsByTitle(String text, int limit);
+
+    List<String> suggestTitles(String prefix, int limit);
 
     /**
      * Create event event.
@@ -0,0 +1,27 @@
+package ua.epam.mishchenko.ticketbooking.service;
+
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The interface Event stats service.
+ */
+public interface EventStatsService {
+
+    /**
+     * Gets the precomputed statistics of the event, one row per category with sold tickets.
+     *
+     * @param eventId the event id
+     * @return the statistics in category order
+     */
+    List<EventStatsDto> getEventStats(String eventId);
+
+    /**
+     * Recomputes the statistics of the events with booked or canceled tickets.
+     *
+     * @param eventIds the ids of the changed events
+     */
+    void refresh(Collection<String> eventIds);
+}
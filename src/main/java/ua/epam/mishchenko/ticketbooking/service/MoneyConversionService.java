@@ -0,0 +1,5 @@
+package ua.epam.mishchenko.ticketbooking.service;
+
+public interface MoneyConversionService {
+    void convert();
+}
@@ -0,0 +1,49 @@
+package ua.epam.mishchenko.ticketbooking.service;
+
+import ua.epam.mishchenko.ticketbooking.model.Category;
+
+import java.util.List;
+
+/**
+ * The interface Seat inventory service.
+ */
+public interface SeatInventoryService {
+
+    /**
+     * Counts free seats of the category.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @return the number of free seats
+     */
+    long getAvailableSeatsCount(String eventId, Category category);
+
+    /**
+     * Gets free places of the category in ascending order.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param limit    the maximum number of places to return
+     * @return the free places
+     */
+    List<Integer> getFreePlaces(String eventId, Category category, int limit);
+
+    /**
+     * Checks the cached sold-out flag of the category, the database is not queried.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @return true if the category is known to be sold out
+     */
+    boolean isSoldOut(String eventId, Category category);
+
+    /**
+     * Finds the best fitting block of adjacent free places in the free interval index.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of places
+     * @return the places of the block or an empty list if there is no such block
+     */
+    List<Integer> findContiguousPlaces(String eventId, Category category, int count);
+}
@@ -1,10 +1,13 @@
 package ua.epam.mishchenko.ticketbooking.service;
 
+import ua.epam.mishchenko.ticketbooking.dto.BookingTimeDto;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.model.Category;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -23,25 +26,64 @@ public interface TicketService {
      */
     TicketDto bookTicket(String userId, String eventId, int place, Category category);
 
+    /**
+     * Book best available tickets.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets in place order or an empty list if not all of them can be booked
+     */
+    List<TicketDto> bookBestAvailable(String userId, String eventId, Category category, int count);
+
+    /**
+     * Book contiguous tickets.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets in place order or an empty list if no block of free places can be booked
+     */
+    List<TicketDto> bookContiguous(String userId, String eventId, Category category, int count);
+
     /**
      * Gets booked tickets.
      *
      * @param user     the user
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the booked tickets
      */
-    List<TicketDto> getBookedTickets(UserDto user, int pageSize, int pageNum);
+    SliceDto<TicketDto> getBookedTickets(UserDto user, int pageSize, String cursor);
 
     /**
      * Gets booked tickets.
      *
      * @param event    the event
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the booked tickets
      */
-    List<TicketDto> getBookedTickets(EventDto event, int pageSize, int pageNum);
+    SliceDto<TicketDto> getBookedTickets(EventDto event, int pageSize, String cursor);
+
+    /**
+     * Gets booked tickets of the places in the bucket.
+     *
+     * @param event  the event
+     * @param bucket the number of the place bucket
+     * @return the booked tickets in place order
+     */
+    List<TicketDto> getBookedTicketsInBucket(EventDto event, int bucket);
+
+    /**
+     * Gets the events and times of the tickets booked since the time.
+     *
+     * @param since the start of the period
+     * @return the bookings
+     */
+    List<BookingTimeDto> getBookingsSince(Date since);
 
     /**
      * Cancel ticket boolean.
@@ -50,4 +92,12 @@ public interface TicketService {
      * @return the boolean
      */
     boolean cancelTicket(String ticketId);
+
+    /**
+     * Cancel tickets int.
+     *
+     * @param ticketIds the ticket ids
+     * @return the number of canceled tickets
+     */
+    int cancelTickets(List<String> ticketIds);
 }
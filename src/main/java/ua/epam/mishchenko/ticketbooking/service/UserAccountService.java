@@ -1,10 +1,15 @@
 package ua.epam.mishchenko.ticketbooking.service;
 
+import ua.epam.mishchenko.ticketbooking.dto.RefillResultDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserAccountDTO;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 public interface UserAccountService {
 
     UserAccountDTO refillAccount(long userId, BigDecimal money);
+
+    List<RefillResultDto> refillAccounts(Map<String, BigDecimal> amounts);
 }
@@ -1,9 +1,8 @@
 package ua.epam.mishchenko.ticketbooking.service;
 
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 
-import java.util.List;
-
 /**
  * The interface User service.
  */
@@ -30,10 +29,10 @@ public interface UserService {
      *
      * @param name     the name
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the users by name
      */
-    List<UserDto> getUsersByName(String name, int pageSize, int pageNum);
+    SliceDto<UserDto> getUsersByName(String name, int pageSize, String cursor);
 
     /**
      * Create user user.
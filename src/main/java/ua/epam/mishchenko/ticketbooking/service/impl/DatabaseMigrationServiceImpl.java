@@ -7,10 +7,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ua.epam.mishchenko.ticketbooking.model.*;
 import ua.epam.mishchenko.ticketbooking.repository.EventRepository;
+import ua.epam.mishchenko.ticketbooking.repository.TicketCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.UserCustomMongoRepository;
 import ua.epam.mishchenko.ticketbooking.service.DatabaseMigrationService;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -19,8 +21,14 @@ public class DatabaseMigrationServiceImpl implements DatabaseMigrationService {
     @Value("${properties.migration_enabled}")
     private boolean migrationEnabled;
     private final EventRepository eventRepository;
+    private final TicketCustomMongoRepository ticketCustomRepository;
+    private final UserCustomMongoRepository userCustomRepository;
     private final MongoTemplate mongoTemplate;
 
+    /**
+     * Copies the events with their tickets. The tickets are written to the ticket collection with
+     * the header of their event, users are shared by email.
+     */
     @Override
     @Transactional
     public void migrate() {
@@ -30,12 +38,14 @@ public class DatabaseMigrationServiceImpl implements DatabaseMigrationService {
 
         Iterable<Event> events = eventRepository.findAll();
 
-        List<EventMongo> mongoEvents = new ArrayList<>();
+        Map<String, UserMongo> users = new HashMap<>();
 
         events.forEach(event -> {
-            EventMongo mongoEvent = createMongoEvent(event);
-            mongoEvents.add(mongoEvent);
-            mongoTemplate.save(mongoEvent, "events");
+            EventMongo mongoEvent = mongoTemplate.save(createMongoEvent(event));
+            var mongoTickets = event.getTickets().stream()
+                    .map(ticket -> createMongoTicket(ticket, mongoEvent, users))
+                    .toList();
+            ticketCustomRepository.upsertTickets(mongoTickets);
         });
     }
 
@@ -45,33 +55,33 @@ public class DatabaseMigrationServiceImpl implements DatabaseMigrationService {
         mongoEvent.setTicketPrice(sqlEvent.getTicketPrice());
         mongoEvent.setDate(sqlEvent.getDate());
         mongoEvent.setTicketPrice(sqlEvent.getTicketPrice());
-
-        var mongoTickets = sqlEvent.getTickets().stream()
-                .map(this::createMongoTicket)
-                .toList();
-
-        mongoEvent.setTickets(mongoTickets);
         return mongoEvent;
     }
 
-    private TicketMongo createMongoTicket(Ticket sqlTicket) {
+    private TicketMongo createMongoTicket(Ticket sqlTicket, EventMongo mongoEvent, Map<String, UserMongo> users) {
         var mongoTicket = new TicketMongo();
         mongoTicket.setPlace(sqlTicket.getPlace());
         mongoTicket.setCategory(sqlTicket.getCategory());
+        mongoTicket.setEvent(mongoEvent);
+        mongoTicket.setEventHeader(EventHeaderMongo.of(mongoEvent));
 
         var user = sqlTicket.getUser();
+        mongoTicket.setUser(users.computeIfAbsent(user.getEmail(),
+                email -> userCustomRepository.findOrCreateByEmail(createMongoUser(user))));
+        return mongoTicket;
+    }
+
+    private UserMongo createMongoUser(User user) {
         var mongoUser = new UserMongo();
         mongoUser.setName(user.getName());
         mongoUser.setEmail(user.getEmail());
 
-        mongoTicket.setUser(mongoUser);
-
         var userAccount = Optional.ofNullable(user.getUserAccount());
         if (userAccount.isPresent()) {
             var mongoUserAccount = new UserAccountMongo();
             mongoUserAccount.setMoney(userAccount.get().getMoney());
             mongoUser.setUserAccount(mongoUserAccount);
         }
-        return mongoTicket;
+        return mongoUser;
     }
 }
@@ -1,13 +1,25 @@
 package ua.epam.mishchenko.ticketbooking.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
+import ua.epam.mishchenko.ticketbooking.inventory.FreeSeatIndex;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.repository.EventCustomMongoRepository;
 import ua.epam.mishchenko.ticketbooking.repository.EventMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.SeatCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.search.TitlePrefixIndex;
 import ua.epam.mishchenko.ticketbooking.service.EventService;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
+import ua.epam.mishchenko.ticketbooking.utils.DayRange;
 
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -19,8 +31,21 @@ public class EventMongoServiceImpl implements EventService {
 
     private final EventMongoRepository eventRepository;
 
+    private final EventCustomMongoRepository eventCustomRepository;
+
+    private final SeatCustomMongoRepository seatRepository;
+
+    private final FreeSeatIndex freeSeatIndex;
+
+    private final TitlePrefixIndex titleIndex;
+
+    private final Cache<String, EventDto> eventCache;
+
+    @Value("${properties.time_zone}")
+    private ZoneId zone;
+
     /**
-     * Gets event by id.
+     * Gets event by id. Events are read through the cache, the returned event is shared and must not be changed.
      *
      * @param eventId the event id
      * @return the event by id
@@ -28,40 +53,42 @@ public class EventMongoServiceImpl implements EventService {
     @Override
     public EventDto getEventById(String eventId) {
         try {
-            var event = eventRepository.findById(eventId)
-                    .orElseThrow(() -> new RuntimeException("Can not to find an event by id: " + eventId));
-            return EventDto.fromEventMongoToEventDto(event);
+            var event = eventCache.get(eventId, id -> eventRepository.findDetailsById(id)
+                    .map(EventDto::fromEventMongoToEventDto)
+                    .orElse(null));
+            if (event == null) {
+                throw new RuntimeException("Can not to find an event by id: " + eventId);
+            }
+            return event;
         } catch (RuntimeException e) {
             return null;
         }
     }
 
     /**
-     * Gets events by title.
+     * Gets events by title ordered by date.
      *
      * @param title    the title
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events by title
      */
     @Override
-    public List<EventDto> getEventsByTitle(String title, int pageSize, int pageNum) {
+    public SliceDto<EventDto> getEventsByTitle(String title, int pageSize, String cursor) {
         try {
             if (title.isEmpty()) {
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
-
-            var eventsByTitle = eventRepository.getAllByTitle(PageRequest.of(pageNum - 1, pageSize), title)
-                    .getContent()
+            var eventsByTitle = eventCustomRepository.findByTitle(title, ContinuationToken.decode(cursor), pageSize + 1)
                     .stream()
                     .map(EventDto::fromEventMongoToEventDto)
                     .toList();
             if (eventsByTitle.isEmpty()) {
                 throw new RuntimeException("Can not to find a list of events by title: " + title);
             }
-            return eventsByTitle;
+            return SliceDto.of(eventsByTitle, pageSize, event -> ContinuationToken.of(event.getDate(), event.getId()));
         } catch (RuntimeException e) {
-            return new ArrayList<>();
+            return SliceDto.empty();
         }
     }
 
@@ -70,24 +97,81 @@ public class EventMongoServiceImpl implements EventService {
      *
      * @param day      the day
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events for day
      */
     @Override
-    public List<EventDto> getEventsForDay(Date day, int pageSize, int pageNum) {
+    public SliceDto<EventDto> getEventsForDay(Date day, int pageSize, String cursor) {
+        if (day == null) {
+            return SliceDto.empty();
+        }
+        DayRange range = DayRange.of(day, zone);
+        return getEventsBetween(range.getFrom(), range.getTo(), pageSize, cursor);
+    }
+
+    /**
+     * Gets events between the dates ordered by date.
+     *
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @param pageSize the page size
+     * @param cursor   the continuation token of the previous slice or null for the first slice
+     * @return the events between the dates
+     */
+    @Override
+    public SliceDto<EventDto> getEventsBetween(Date from, Date to, int pageSize, String cursor) {
         try {
-            if (day == null) {
-                return new ArrayList<>();
+            if (from == null || to == null) {
+                return SliceDto.empty();
             }
-            var eventsByTitle = eventRepository.getAllByDate(PageRequest.of(pageNum - 1, pageSize), day)
-                    .getContent()
+            var eventsBetween = eventCustomRepository.findBetween(from, to, ContinuationToken.decode(cursor), pageSize + 1)
                     .stream()
                     .map(EventDto::fromEventMongoToEventDto)
                     .toList();
-            if (eventsByTitle.isEmpty()) {
-                throw new RuntimeException("Can not to find a list of events for day: " + day);
+            if (eventsBetween.isEmpty()) {
+                throw new RuntimeException("Can not to find a list of events between " + from + " and " + to);
+            }
+            return SliceDto.of(eventsBetween, pageSize, event -> ContinuationToken.of(event.getDate(), event.getId()));
+        } catch (RuntimeException e) {
+            return SliceDto.empty();
+        }
+    }
+
+    /**
+     * Searches events by the words of their titles, the best matching events first.
+     *
+     * @param text  the words to search
+     * @param limit the maximum number of events
+     * @return the events or an empty list if nothing matches
+     */
+    @Override
+    public List<EventDto> searchEventsByTitle(String text, int limit) {
+        try {
+            if (text == null || text.isBlank()) {
+                return new ArrayList<>();
             }
-            return eventsByTitle;
+            return eventCustomRepository.searchByTitle(text, limit).stream()
+                    .map(EventDto::fromEventMongoToEventDto)
+                    .toList();
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Suggests event titles starting with the prefix.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum number of titles
+     * @return the titles in alphabetical order
+     */
+    @Override
+    public List<String> suggestTitles(String prefix, int limit) {
+        try {
+            if (prefix == null) {
+                return new ArrayList<>();
+            }
+            return titleIndex.suggest(prefix, limit, eventCustomRepository::countTitles);
         } catch (RuntimeException e) {
             return new ArrayList<>();
         }
@@ -108,13 +192,21 @@ public class EventMongoServiceImpl implements EventService {
             if (eventExistsByTitleAndDay(event)) {
                 return null;
             }
-            var savedEvent = eventRepository.save(EventDto.fromEventDtoToEventMongo(event));
+            var savedEvent = eventRepository.save(withEmptySales(EventDto.fromEventDtoToEventMongo(event)));
+            seatRepository.createSeats(savedEvent.getId(), savedEvent.getCapacity());
+            eventCache.invalidate(savedEvent.getId());
+            titleIndex.add(savedEvent.getTitle());
             return EventDto.fromEventMongoToEventDto(savedEvent);
         } catch (RuntimeException e) {
             return null;
         }
     }
 
+    private EventMongo withEmptySales(EventMongo event) {
+        event.getCapacity().keySet().forEach(category -> event.getSold().put(category, 0));
+        return event;
+    }
+
     private boolean eventExistsByTitleAndDay(EventDto event) {
         return eventRepository.existsByTitleAndDate(event.getTitle(), event.getDate());
     }
@@ -141,23 +233,22 @@ public class EventMongoServiceImpl implements EventService {
             if (isEventNull(event)) {
                 throw new RuntimeException("The event can not be null");
             }
-            if (!eventExistsById(event)) {
-                throw new RuntimeException("This event does not exist");
-            }
+            var storedEvent = eventRepository.findDetailsById(event.getId())
+                    .orElseThrow(() -> new RuntimeException("This event does not exist"));
             if (eventExistsByTitleAndDay(event)) {
                 throw new RuntimeException("These title and day are already exists for one event");
             }
-            var savedEvent = eventRepository.save(EventDto.fromEventDtoToEventMongo(event));
-            return EventDto.fromEventMongoToEventDto(savedEvent);
+            var updatedEvent = eventCustomRepository.updateDetails(EventDto.fromEventDtoToEventMongo(event))
+                    .map(EventDto::fromEventMongoToEventDto)
+                    .orElseThrow(() -> new RuntimeException("This event does not exist"));
+            eventCache.invalidate(event.getId());
+            titleIndex.replace(storedEvent.getTitle(), updatedEvent.getTitle());
+            return updatedEvent;
         } catch (RuntimeException e) {
             return null;
         }
     }
 
-    private boolean eventExistsById(EventDto event) {
-        return eventRepository.existsById(event.getId());
-    }
-
     /**
      * Delete event boolean.
      *
@@ -167,10 +258,24 @@ public class EventMongoServiceImpl implements EventService {
     @Override
     public boolean deleteEvent(String eventId) {
         try {
-            eventRepository.deleteById(eventId);
+            eventCustomRepository.deleteDetails(eventId)
+                    .ifPresent(event -> titleIndex.remove(event.getTitle()));
+            seatRepository.deleteSeats(eventId);
+            freeSeatIndex.evict(eventId);
+            eventCache.invalidate(eventId);
             return true;
         } catch (RuntimeException e) {
             return false;
         }
     }
+
+    /**
+     * Drops the cached event of a canceled ticket, its sold counters have changed.
+     *
+     * @param ticket the canceled ticket
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketCanceled(CanceledTicketDto ticket) {
+        eventCache.invalidate(ticket.getEventId());
+    }
 }
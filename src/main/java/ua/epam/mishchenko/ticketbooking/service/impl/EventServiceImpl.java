@@ -2,14 +2,25 @@ package ua.epam.mishchenko.ticketbooking.service.impl;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
+import ua.epam.mishchenko.ticketbooking.inventory.FreeSeatIndex;
+import ua.epam.mishchenko.ticketbooking.model.Event;
 import ua.epam.mishchenko.ticketbooking.repository.EventRepository;
+import ua.epam.mishchenko.ticketbooking.repository.SeatRepository;
+import ua.epam.mishchenko.ticketbooking.search.TitlePrefixIndex;
 import ua.epam.mishchenko.ticketbooking.service.EventService;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
+import ua.epam.mishchenko.ticketbooking.utils.DayRange;
 
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -31,13 +42,41 @@ public class EventServiceImpl implements EventService {
      */
     private final EventRepository eventRepository;
 
+    /**
+     * The seat repository.
+     */
+    private final SeatRepository seatRepository;
+
+    /**
+     * The free seat trees.
+     */
+    private final FreeSeatIndex freeSeatIndex;
+
+    /**
+     * The event titles for type-ahead.
+     */
+    private final TitlePrefixIndex titleIndex;
+
+    /**
+     * The time zone of event days.
+     */
+    @Value("${properties.time_zone}")
+    private ZoneId zone;
+
     /**
      * Instantiates a new EventServiceImpl.
      *
      * @param eventRepository the event repository
+     * @param seatRepository  the seat repository
+     * @param freeSeatIndex   the free seat trees
+     * @param titleIndex      the event titles for type-ahead
      */
-    public EventServiceImpl(EventRepository eventRepository) {
+    public EventServiceImpl(EventRepository eventRepository, SeatRepository seatRepository,
+                            FreeSeatIndex freeSeatIndex, TitlePrefixIndex titleIndex) {
         this.eventRepository = eventRepository;
+        this.seatRepository = seatRepository;
+        this.freeSeatIndex = freeSeatIndex;
+        this.titleIndex = titleIndex;
     }
 
     /**
@@ -61,32 +100,36 @@ public class EventServiceImpl implements EventService {
     }
 
     /**
-     * Gets events by title.
+     * Gets events by title ordered by date.
      *
      * @param title    the title
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events by title
      */
     @Override
-    public List<EventDto> getEventsByTitle(String title, int pageSize, int pageNum) {
-        log.warn("Finding all events by title {} with page size {} and number of page {}",
-                title, pageSize, pageNum);
+    public SliceDto<EventDto> getEventsByTitle(String title, int pageSize, String cursor) {
+        log.warn("Finding all events by title {} with page size {} after {}",
+                title, pageSize, cursor);
         try {
             if (title.isEmpty()) {
                 log.warn("The title can not be empty");
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
-            Page<EventDto> eventsByTitle = eventRepository.getAllByTitle(PageRequest.of(pageNum - 1, pageSize), title);
-            if (!eventsByTitle.hasContent()) {
+            ContinuationToken after = ContinuationToken.decode(cursor);
+            Pageable limit = PageRequest.ofSize(pageSize + 1);
+            List<EventDto> eventsByTitle = after == null
+                    ? eventRepository.getFirstByTitle(title, limit)
+                    : eventRepository.getNextByTitle(title, after.getDate(), Long.parseLong(after.getId()), limit);
+            if (eventsByTitle.isEmpty()) {
                 throw new RuntimeException("Can not to find a list of events by title: " + title);
             }
-            log.info("All events successfully found by title {} with page size {} and number of page {}",
-                    title, pageSize, pageNum);
-            return eventsByTitle.getContent();
+            log.info("All events successfully found by title {} with page size {} after {}",
+                    title, pageSize, cursor);
+            return SliceDto.of(eventsByTitle, pageSize, event -> ContinuationToken.of(event.getDate(), event.getId()));
         } catch (RuntimeException e) {
             log.warn("Can not to find a list of events by title {}", title, e);
-            return new ArrayList<>();
+            return SliceDto.empty();
         }
     }
 
@@ -95,28 +138,99 @@ public class EventServiceImpl implements EventService {
      *
      * @param day      the day
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the events for day
      */
     @Override
-    public List<EventDto> getEventsForDay(Date day, int pageSize, int pageNum) {
-        log.info("Finding all events for day {} with page size {} and number of page {}",
-                day, pageSize, pageNum);
+    public SliceDto<EventDto> getEventsForDay(Date day, int pageSize, String cursor) {
+        if (day == null) {
+            log.warn("The day can not be null");
+            return SliceDto.empty();
+        }
+        DayRange range = DayRange.of(day, zone);
+        log.info("Finding all events for day {} in time zone {}", day, zone);
+        return getEventsBetween(range.getFrom(), range.getTo(), pageSize, cursor);
+    }
+
+    /**
+     * Gets events between the dates ordered by date.
+     *
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @param pageSize the page size
+     * @param cursor   the continuation token of the previous slice or null for the first slice
+     * @return the events between the dates
+     */
+    @Override
+    public SliceDto<EventDto> getEventsBetween(Date from, Date to, int pageSize, String cursor) {
+        log.info("Finding all events between {} and {} with page size {} after {}",
+                from, to, pageSize, cursor);
         try {
-            if (day == null) {
-                log.warn("The day can not be null");
-                return new ArrayList<>();
+            if (from == null || to == null) {
+                log.warn("The range can not be open");
+                return SliceDto.empty();
             }
-            Page<EventDto> eventsByTitle = eventRepository.getAllByDate(PageRequest.of(pageNum - 1, pageSize), day);
-            if (!eventsByTitle.hasContent()) {
-                throw new RuntimeException("Can not to find a list of events for day: " + day);
+            ContinuationToken after = ContinuationToken.decode(cursor);
+            Pageable limit = PageRequest.ofSize(pageSize + 1);
+            List<EventDto> eventsBetween = after == null
+                    ? eventRepository.getFirstBetween(from, to, limit)
+                    : eventRepository.getNextBetween(from, to, after.getDate(), Long.parseLong(after.getId()), limit);
+            if (eventsBetween.isEmpty()) {
+                throw new RuntimeException("Can not to find a list of events between " + from + " and " + to);
+            }
+            log.info("All events successfully found between {} and {} with page size {} after {}",
+                    from, to, pageSize, cursor);
+
+            return SliceDto.of(eventsBetween, pageSize, event -> ContinuationToken.of(event.getDate(), event.getId()));
+        } catch (RuntimeException e) {
+            log.warn("Can not to find a list of events between {} and {}", from, to, e);
+            return SliceDto.empty();
+        }
+    }
+
+    /**
+     * Searches events by the words of their titles with the full-text index, the best matching events first.
+     *
+     * @param text  the words to search
+     * @param limit the maximum number of events
+     * @return the events or an empty list if nothing matches
+     */
+    @Override
+    public List<EventDto> searchEventsByTitle(String text, int limit) {
+        log.info("Searching events by title text '{}' with limit {}", text, limit);
+        try {
+            if (text == null || text.isBlank()) {
+                log.warn("The search text can not be blank");
+                return new ArrayList<>();
             }
-            log.info("All events successfully found for day {} with page size {} and number of page {}",
-                    day, pageSize, pageNum);
+            List<EventDto> events = eventRepository.searchByTitle(text, limit).stream()
+                    .map(EventDto::fromSqlEventToEventDto)
+                    .toList();
+            log.info("Found {} events by title text '{}'", events.size(), text);
+            return events;
+        } catch (RuntimeException e) {
+            log.warn("Can not to search events by title text '{}'", text, e);
+            return new ArrayList<>();
+        }
+    }
 
-            return eventsByTitle.getContent();
+    /**
+     * Suggests event titles starting with the prefix.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum number of titles
+     * @return the titles in alphabetical order
+     */
+    @Override
+    public List<String> suggestTitles(String prefix, int limit) {
+        try {
+            if (prefix == null) {
+                log.warn("The prefix can not be null");
+                return new ArrayList<>();
+            }
+            return titleIndex.suggest(prefix, limit, eventRepository::countTitles);
         } catch (RuntimeException e) {
-            log.warn("Can not to find a list of events for day {}", day, e);
+            log.warn("Can not to suggest titles by prefix '{}'", prefix, e);
             return new ArrayList<>();
         }
     }
@@ -128,6 +242,7 @@ public class EventServiceImpl implements EventService {
      * @return the event
      */
     @Override
+    @Transactional
     public EventDto createEvent(EventDto event) {
         log.info("Start creating an event: {}", event);
         try {
@@ -139,15 +254,41 @@ public class EventServiceImpl implements EventService {
                 log.warn("These title and day are already exists for one event");
                 return null;
             }
-            var savedEvent = eventRepository.save(EventDto.toEventDtoToEvent(event));
+            var savedEvent = eventRepository.save(withEmptySales(EventDto.toEventDtoToEvent(event)));
+            createSeats(savedEvent);
+            titleIndex.add(savedEvent.getTitle());
             log.info("Successfully creation of the event: {}", event);
             return EventDto.fromSqlEventToEventDto(savedEvent);
         } catch (RuntimeException e) {
             log.warn("Can not to create an event: {}", event, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return null;
         }
     }
 
+    /**
+     * Starts the sold counter of every category with a capacity from zero.
+     *
+     * @param event the event to save
+     * @return the event with the sold counters
+     */
+    private Event withEmptySales(Event event) {
+        event.getCapacity().keySet().forEach(category -> event.getSold().put(category, 0));
+        return event;
+    }
+
+    /**
+     * Generates free seats for every category with a capacity.
+     *
+     * @param event the saved event
+     */
+    private void createSeats(Event event) {
+        event.getCapacity().forEach((category, capacity) -> {
+            int created = seatRepository.createSeats(event.getId(), category.name(), capacity);
+            log.info("Created {} {} seats for the event with id {}", created, category, event.getId());
+        });
+    }
+
     private boolean eventExistsByTitleAndDay(EventDto event) {
         return eventRepository.existsByTitleAndDate(event.getTitle(), event.getDate());
     }
@@ -169,29 +310,43 @@ public class EventServiceImpl implements EventService {
      * @return the event
      */
     @Override
+    @Transactional
     public EventDto updateEvent(EventDto event) {
         log.info("Start updating an event: {}", event);
         try {
             if (isEventNull(event)) {
                 throw new RuntimeException("The event can not be null");
             }
-            if (!eventExistsById(event)) {
-                throw new RuntimeException("This event does not exist");
-            }
+            Event storedEvent = eventRepository.findById(Long.parseLong(event.getId()))
+                    .orElseThrow(() -> new RuntimeException("This event does not exist"));
             if (eventExistsByTitleAndDay(event)) {
                 throw new RuntimeException("These title and day are already exists for one event");
             }
-            var savedEvent = eventRepository.save(EventDto.toEventDtoToEvent(event));
+            String previousTitle = storedEvent.getTitle();
+            var savedEvent = eventRepository.save(updateDetails(storedEvent, event));
+            titleIndex.replace(previousTitle, savedEvent.getTitle());
             log.info("Successfully updated of the event: {}", event);
             return EventDto.fromSqlEventToEventDto(savedEvent);
         } catch (RuntimeException e) {
             log.warn("Can not to update an event: {}", event, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return null;
         }
     }
 
-    private boolean eventExistsById(EventDto event) {
-        return eventRepository.existsById(Long.parseLong(event.getId()));
+    /**
+     * Changes the details of the stored event. The capacity and the sold counters are left untouched,
+     * seats are generated only once on creation and the counters are changed only by bookings.
+     *
+     * @param storedEvent the stored event
+     * @param event       the event with new details
+     * @return the stored event with the new details
+     */
+    private Event updateDetails(Event storedEvent, EventDto event) {
+        storedEvent.setTitle(event.getTitle());
+        storedEvent.setDate(event.getDate());
+        storedEvent.setTicketPrice(event.getTicketPrice());
+        return storedEvent;
     }
 
     /**
@@ -201,14 +356,21 @@ public class EventServiceImpl implements EventService {
      * @return the boolean
      */
     @Override
+    @Transactional
     public boolean deleteEvent(String eventId) {
         log.info("Start deleting an event with id: {}", eventId);
         try {
-            eventRepository.deleteById(Long.parseLong(eventId));
+            Event storedEvent = eventRepository.findById(Long.parseLong(eventId))
+                    .orElseThrow(() -> new RuntimeException("This event does not exist"));
+            seatRepository.deleteByEventId(storedEvent.getId());
+            eventRepository.delete(storedEvent);
+            freeSeatIndex.evict(eventId);
+            titleIndex.remove(storedEvent.getTitle());
             log.info("Successfully deletion of the event with id: {}", eventId);
             return true;
         } catch (RuntimeException e) {
             log.warn("Can not to delete an event with id: {}", eventId, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
@@ -0,0 +1,49 @@
+package ua.epam.mishchenko.ticketbooking.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+import ua.epam.mishchenko.ticketbooking.model.EventStatsMongo;
+import ua.epam.mishchenko.ticketbooking.repository.EventStatsCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.service.EventStatsService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Profile(value = "mongo")
+@Service
+@RequiredArgsConstructor
+public class EventStatsMongoServiceImpl implements EventStatsService {
+
+    private final EventStatsCustomMongoRepository eventStatsRepository;
+
+    @Override
+    public List<EventStatsDto> getEventStats(String eventId) {
+        try {
+            return eventStatsRepository.findByEventId(eventId).stream()
+                    .map(this::toEventStatsDto)
+                    .toList();
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Merges the regrouped tickets of the changed events only, the rest of the view is not touched.
+     *
+     * @param eventIds the ids of the changed events
+     */
+    @Override
+    public void refresh(Collection<String> eventIds) {
+        if (!eventIds.isEmpty()) {
+            eventStatsRepository.merge(eventIds);
+        }
+    }
+
+    private EventStatsDto toEventStatsDto(EventStatsMongo stats) {
+        return new EventStatsDto(stats.getEventId(), stats.getCategory(), stats.getSold(), stats.getCapacity(),
+                stats.getRevenue());
+    }
+}
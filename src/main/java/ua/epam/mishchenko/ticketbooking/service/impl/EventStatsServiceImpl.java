@@ -0,0 +1,84 @@
+package ua.epam.mishchenko.ticketbooking.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+import ua.epam.mishchenko.ticketbooking.repository.TicketRepository;
+import ua.epam.mishchenko.ticketbooking.service.EventStatsService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The type Event stats service.
+ */
+@Profile(value = "postgres")
+@Service
+public class EventStatsServiceImpl implements EventStatsService {
+
+    /**
+     * The constant log.
+     */
+    private static final Logger log = LoggerFactory.getLogger(EventStatsServiceImpl.class);
+
+    /**
+     * The number of events refreshed by one statement.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * The ticket repository.
+     */
+    private final TicketRepository ticketRepository;
+
+    /**
+     * Instantiates a new EventStatsServiceImpl.
+     *
+     * @param ticketRepository the ticket repository
+     */
+    public EventStatsServiceImpl(TicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+    }
+
+    /**
+     * Gets the statistics of the event from the event_stats table.
+     *
+     * @param eventId the event id
+     * @return the statistics or an empty list if the event has no sold tickets
+     */
+    @Override
+    public List<EventStatsDto> getEventStats(String eventId) {
+        log.info("Finding the statistics of the event with id: {}", eventId);
+        try {
+            List<EventStatsDto> stats = ticketRepository.findEventStats(Long.parseLong(eventId));
+            log.info("The statistics of the event with id {} successfully found: {}", eventId, stats);
+            return stats;
+        } catch (RuntimeException e) {
+            log.error("Can not to find the statistics of the event with id: {}", eventId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Recomputes the rows of the changed events only, in batches which keep the statement
+     * below the limit of bind parameters.
+     *
+     * @param eventIds the ids of the changed events
+     */
+    @Override
+    public void refresh(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = eventIds.stream()
+                .map(Long::parseLong)
+                .toList();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            ticketRepository.refreshEventStats(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+        }
+        log.info("The event statistics refreshed after changes of {} events", eventIds.size());
+    }
+}
@@ -0,0 +1,56 @@
+package ua.epam.mishchenko.ticketbooking.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.model.TicketMongo;
+import ua.epam.mishchenko.ticketbooking.model.UserMongo;
+import ua.epam.mishchenko.ticketbooking.service.MoneyConversionService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts money stored as strings to {@code Decimal128} in place. Each field is converted by one
+ * pipeline update on the server, only documents still holding a string are matched, so running it
+ * again changes nothing.
+ */
+@Service
+@RequiredArgsConstructor
+public class MoneyConversionServiceImpl implements MoneyConversionService {
+
+    private static final Logger log = LoggerFactory.getLogger(MoneyConversionServiceImpl.class);
+
+    private static final Map<Class<?>, String> MONEY_FIELDS = Map.of(
+            UserMongo.class, "userAccount.money",
+            EventMongo.class, "ticketPrice",
+            TicketMongo.class, "eventHeader.ticketPrice");
+
+    @Value("${properties.money_conversion_enabled}")
+    private boolean conversionEnabled;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void convert() {
+        if (!conversionEnabled) {
+            return;
+        }
+        MONEY_FIELDS.forEach(this::convert);
+    }
+
+    private void convert(Class<?> type, String field) {
+        String collection = mongoTemplate.getCollectionName(type);
+        Document stringMoney = new Document(field, new Document("$type", BsonType.STRING.getValue()));
+        Document toDecimal = new Document("$set", new Document(field, new Document("$toDecimal", "$" + field)));
+        long converted = mongoTemplate.getCollection(collection)
+                .updateMany(stringMoney, List.of(toDecimal))
+                .getModifiedCount();
+        log.info("{} of {} converted to decimal in {} documents", field, collection, converted);
+    }
+}
@@ -0,0 +1,69 @@
+package ua.epam.mishchenko.ticketbooking.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.inventory.FreeSeatIndex;
+import ua.epam.mishchenko.ticketbooking.inventory.SoldOutRegistry;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.SeatStatus;
+import ua.epam.mishchenko.ticketbooking.repository.EventMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.SeatCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.service.SeatInventoryService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Profile(value = "mongo")
+@Service
+@RequiredArgsConstructor
+public class SeatInventoryMongoServiceImpl implements SeatInventoryService {
+
+    private final SeatCustomMongoRepository seatRepository;
+
+    private final SoldOutRegistry soldOutRegistry;
+
+    private final EventMongoRepository eventRepository;
+
+    private final FreeSeatIndex freeSeatIndex;
+
+    @Override
+    public long getAvailableSeatsCount(String eventId, Category category) {
+        try {
+            return seatRepository.countSeats(eventId, category, SeatStatus.FREE);
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public List<Integer> getFreePlaces(String eventId, Category category, int limit) {
+        try {
+            return seatRepository.findPlaces(eventId, category, SeatStatus.FREE, limit);
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public boolean isSoldOut(String eventId, Category category) {
+        return soldOutRegistry.isSoldOut(eventId, category);
+    }
+
+    @Override
+    public List<Integer> findContiguousPlaces(String eventId, Category category, int count) {
+        try {
+            return freeSeatIndex.findBlock(eventId, category, count, () -> getCapacity(eventId, category),
+                    () -> seatRepository.findPlaces(eventId, category, SeatStatus.FREE, getCapacity(eventId, category)));
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private int getCapacity(String eventId, Category category) {
+        return eventRepository.findDetailsById(eventId)
+                .map(event -> event.getCapacity().get(category))
+                .orElseThrow(() -> new RuntimeException(
+                        "The event with id " + eventId + " does not have seats of the category " + category));
+    }
+}
@@ -0,0 +1,146 @@
+package ua.epam.mishchenko.ticketbooking.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.inventory.FreeSeatIndex;
+import ua.epam.mishchenko.ticketbooking.inventory.SoldOutRegistry;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.SeatStatus;
+import ua.epam.mishchenko.ticketbooking.repository.EventRepository;
+import ua.epam.mishchenko.ticketbooking.repository.SeatRepository;
+import ua.epam.mishchenko.ticketbooking.service.SeatInventoryService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The type Seat inventory service.
+ */
+@Profile(value = "postgres")
+@Service
+public class SeatInventoryServiceImpl implements SeatInventoryService {
+
+    /**
+     * The constant log.
+     */
+    private static final Logger log = LoggerFactory.getLogger(SeatInventoryServiceImpl.class);
+
+    /**
+     * The seat repository.
+     */
+    private final SeatRepository seatRepository;
+
+    /**
+     * The sold-out flags.
+     */
+    private final SoldOutRegistry soldOutRegistry;
+
+    /**
+     * The event repository.
+     */
+    private final EventRepository eventRepository;
+
+    /**
+     * The free seat index.
+     */
+    private final FreeSeatIndex freeSeatIndex;
+
+    /**
+     * Instantiates a new SeatInventoryServiceImpl.
+     *
+     * @param seatRepository  the seat repository
+     * @param soldOutRegistry the sold-out flags
+     * @param eventRepository the event repository
+     * @param freeSeatIndex   the free seat index
+     */
+    public SeatInventoryServiceImpl(SeatRepository seatRepository, SoldOutRegistry soldOutRegistry,
+                                    EventRepository eventRepository, FreeSeatIndex freeSeatIndex) {
+        this.seatRepository = seatRepository;
+        this.soldOutRegistry = soldOutRegistry;
+        this.eventRepository = eventRepository;
+        this.freeSeatIndex = freeSeatIndex;
+    }
+
+    /**
+     * Counts free seats of the category.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @return the number of free seats
+     */
+    @Override
+    public long getAvailableSeatsCount(String eventId, Category category) {
+        log.info("Counting free seats of the event with id {} and category {}", eventId, category);
+        try {
+            return seatRepository.countByEventIdAndCategoryAndStatus(Long.parseLong(eventId), category, SeatStatus.FREE);
+        } catch (RuntimeException e) {
+            log.warn("Can not to count free seats of the event with id {} and category {}", eventId, category, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Gets free places of the category.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param limit    the maximum number of places to return
+     * @return the free places
+     */
+    @Override
+    public List<Integer> getFreePlaces(String eventId, Category category, int limit) {
+        log.info("Finding {} free places of the event with id {} and category {}", limit, eventId, category);
+        try {
+            return seatRepository.findPlaces(Long.parseLong(eventId), category, SeatStatus.FREE, PageRequest.of(0, limit));
+        } catch (RuntimeException e) {
+            log.warn("Can not to find free places of the event with id {} and category {}", eventId, category, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Checks the cached sold-out flag of the category.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @return true if the category is known to be sold out
+     */
+    @Override
+    public boolean isSoldOut(String eventId, Category category) {
+        return soldOutRegistry.isSoldOut(eventId, category);
+    }
+
+    /**
+     * Finds the best fitting block of adjacent free places in the free interval index.
+     * The event and its free places are read only when the index does not hold the category yet.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of places
+     * @return the places of the block or an empty list if there is no such block
+     */
+    @Override
+    public List<Integer> findContiguousPlaces(String eventId, Category category, int count) {
+        log.info("Finding {} adjacent free places of the event with id {} and category {}", count, eventId, category);
+        try {
+            long id = Long.parseLong(eventId);
+            return freeSeatIndex.findBlock(eventId, category, count, () -> getCapacity(id, category),
+                    () -> seatRepository.findPlaces(id, category, SeatStatus.FREE, Pageable.unpaged()));
+        } catch (RuntimeException e) {
+            log.warn("Can not to find adjacent free places of the event with id {} and category {}",
+                    eventId, category, e);
+            return new ArrayList<>();
+        }
+    }
+
+    private int getCapacity(long eventId, Category category) {
+        return eventRepository.findById(eventId)
+                .map(event -> event.getCapacity().get(category))
+                .orElseThrow(() -> new RuntimeException(
+                        "The event with id " + eventId + " does not have seats of the category " + category));
+    }
+}
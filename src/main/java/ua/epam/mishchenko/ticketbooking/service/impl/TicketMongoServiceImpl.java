@@ -1,38 +1,68 @@
 package ua.epam.mishchenko.ticketbooking.service.impl;
 
+import com.mongodb.MongoException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionOperations;
+import ua.epam.mishchenko.ticketbooking.dto.BookingTimeDto;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
+import ua.epam.mishchenko.ticketbooking.inventory.FreeSeatIndex;
+import ua.epam.mishchenko.ticketbooking.inventory.SoldOutRegistry;
+import ua.epam.mishchenko.ticketbooking.ledger.AccountLedger;
 import ua.epam.mishchenko.ticketbooking.model.*;
 import ua.epam.mishchenko.ticketbooking.repository.*;
+import ua.epam.mishchenko.ticketbooking.service.EventService;
 import ua.epam.mishchenko.ticketbooking.service.TicketService;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
+import ua.epam.mishchenko.ticketbooking.utils.PlaceBucket;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Profile(value = "mongo")
 @Service
 @RequiredArgsConstructor
 public class TicketMongoServiceImpl implements TicketService {
 
+    private static final int MAX_CANCEL_ATTEMPTS = 3;
+
     private final UserMongoRepository userRepository;
 
-    private final EventMongoRepository eventRepository;
+    private final EventService eventService;
+
+    private final EventCustomMongoRepository eventCustomRepository;
 
     private final TicketMongoRepository ticketRepository;
 
     private final TicketCustomMongoRepository ticketCustomMongoRepository;
 
-    private final UserAccountCustomMongoRepository userAccountCustomRepository;
+    private final AccountLedger accountLedger;
+
+    private final SeatCustomMongoRepository seatRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SoldOutRegistry soldOutRegistry;
+
+    private final FreeSeatIndex freeSeatIndex;
+
+    private final TransactionOperations mongoTransaction;
 
     /**
      * Book ticket.
@@ -55,70 +85,258 @@ public class TicketMongoServiceImpl implements TicketService {
     }
 
     private TicketDto processBookingTicket(String userId, String eventId, int place, Category category) {
+        throwRuntimeExceptionIfSoldOut(eventId, category);
         throwRuntimeExceptionIfUserNotExist(userId);
-        throwRuntimeExceptionIfEventNotExist(eventId);
-        throwRuntimeExceptionIfTicketAlreadyBooked(eventId, place, category);
-        UserAccountMongo userAccount = getUserAccount(userId);
         EventDto event = getEvent(eventId);
-        throwRuntimeExceptionIfUserNotHaveEnoughMoney(userAccount, event);
-        buyTicket(userAccount, event);
-        return saveBookedTicket(userId, eventId, place, category);
+        boolean seatClaimed = reservePlace(event, place, category);
+        boolean paid = false;
+        try {
+            paid = accountLedger.debit(userId, event.getTicketPrice(), "ticket of the event " + eventId).isPresent();
+            if (!paid) {
+                throw new RuntimeException("The user with id " + userId + " does not have enough money for a ticket "
+                        + "with event id " + eventId);
+            }
+            TicketDto ticket = saveBookedTicket(userId, event, place, category);
+            eventPublisher.publishEvent(ticket);
+            return ticket;
+        } catch (RuntimeException e) {
+            if (paid) {
+                accountLedger.credit(userId, event.getTicketPrice(), "failed booking of the event " + eventId);
+            }
+            if (seatClaimed) {
+                seatRepository.releaseSeat(eventId, place, category);
+                eventCustomRepository.decrementSold(eventId, category, 1);
+            }
+            throw e;
+        }
     }
 
-    private TicketDto saveBookedTicket(String userId, String eventId, int place, Category category) {
-        UserMongo user = userRepository.findById(userId).get();
-        EventMongo event = eventRepository.findById(eventId).get();
-        TicketMongo saveTicked = ticketRepository.save(createNewTicket(user, event, place, category));
-        return TicketDto.fromMongoTicket(saveTicked, event, user);
+    private void throwRuntimeExceptionIfSoldOut(String eventId, Category category) {
+        if (soldOutRegistry.isSoldOut(eventId, category)) {
+            throw new RuntimeException("The category " + category + " of the event with id " + eventId + " is sold out");
+        }
     }
 
-    private void buyTicket(UserAccountMongo userAccount, EventDto event) {
-        userAccount.setMoney(subtractTicketPriceFromUserMoney(userAccount, event));
+    /**
+     * Reserves the place. Events with a seat inventory take one seat from the sold counter
+     * and claim the seat by conditional updates, the rest of events check that no ticket exists for the place.
+     *
+     * @param event    the event
+     * @param place    the place
+     * @param category the category
+     * @return true if a seat was claimed and has to be released when the booking fails
+     */
+    private boolean reservePlace(EventDto event, int place, Category category) {
+        if (!event.hasSeatInventory(category)) {
+            throwRuntimeExceptionIfTicketAlreadyBooked(event.getId(), place, category);
+            return false;
+        }
+        takeSeatsFromSoldCounter(event, category, 1);
+        if (!seatRepository.claimSeat(event.getId(), place, category)) {
+            eventCustomRepository.decrementSold(event.getId(), category, 1);
+            throw new RuntimeException("The place " + place + " of the category " + category + " is not free");
+        }
+        return true;
     }
 
-    private BigDecimal subtractTicketPriceFromUserMoney(UserAccountMongo userAccount, EventDto event) {
-        return userAccount.getMoney().subtract(event.getTicketPrice());
+    /**
+     * Takes the seats from the sold counter. The category is flagged as sold out when no seat is left,
+     * a refused request for several seats does not mean that the category is sold out.
+     *
+     * @param event    the event
+     * @param category the category
+     * @param count    the number of seats
+     */
+    private void takeSeatsFromSoldCounter(EventDto event, Category category, int count) {
+        if (event.isSoldOut(category) || !eventCustomRepository.incrementSold(event.getId(), category, count)) {
+            if (count == 1 || event.isSoldOut(category)) {
+                soldOutRegistry.markSoldOut(event.getId(), category);
+            }
+            throw new RuntimeException("There are not " + count + " seats left of the category " + category +
+                    " for the event with id " + event.getId());
+        }
     }
 
-    private void throwRuntimeExceptionIfUserNotHaveEnoughMoney(UserAccountMongo userAccount, EventDto event) {
-        if (!userHasEnoughMoneyForTicket(userAccount, event)) {
-            throw new RuntimeException();
+    /**
+     * Book best available tickets. The free seat tree proposes the best free places and they are claimed
+     * in the seat inventory. Every step is undone when a later one fails, so either all tickets are booked
+     * or none of them.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets in place order or an empty list if not all of them can be booked
+     */
+    @Override
+    public List<TicketDto> bookBestAvailable(String userId, String eventId, Category category, int count) {
+        try {
+            return processBookingSeats(userId, eventId, category, count, false);
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
         }
     }
 
-    private void throwRuntimeExceptionIfTicketAlreadyBooked(String eventId, int place, Category category) {
-        if (ticketCustomMongoRepository.existsByEventAndPlaceAndCategory(String.valueOf(eventId), place, category)) {
-            throw new RuntimeException("This ticket already booked");
+    /**
+     * Book contiguous tickets. The free interval index proposes the best fitting block of adjacent free places
+     * and they are claimed in the seat inventory, undone like {@link #bookBestAvailable}.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets in place order or an empty list if no block of free places can be booked
+     */
+    @Override
+    public List<TicketDto> bookContiguous(String userId, String eventId, Category category, int count) {
+        try {
+            return processBookingSeats(userId, eventId, category, count, true);
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
         }
     }
 
-    private EventDto getEvent(String eventId) {
-        return eventRepository.findById(String.valueOf(eventId))
-                .map(EventDto::fromEventMongoToEventDto)
-                .orElseThrow(() -> new RuntimeException("Can not to find an event by id: " + eventId));
+    private List<TicketDto> processBookingSeats(String userId, String eventId, Category category, int count,
+                                                boolean contiguous) {
+        if (count < 1) {
+            throw new RuntimeException("The number of tickets must be positive: " + count);
+        }
+        throwRuntimeExceptionIfSoldOut(eventId, category);
+        throwRuntimeExceptionIfUserNotExist(userId);
+        EventDto event = getEvent(eventId);
+        if (!event.hasSeatInventory(category)) {
+            throw new RuntimeException("The event with id " + eventId + " does not have seats of the category " + category);
+        }
+        takeSeatsFromSoldCounter(event, category, count);
+        List<Integer> places = new ArrayList<>();
+        BigDecimal totalPrice = event.getTicketPrice().multiply(BigDecimal.valueOf(count));
+        boolean paid = false;
+        try {
+            if (contiguous) {
+                claimContiguousSeats(event, category, count, places);
+            } else {
+                claimBestSeats(event, category, count, places);
+            }
+            paid = accountLedger.debit(userId, totalPrice, count + " tickets of the event " + eventId).isPresent();
+            if (!paid) {
+                throw new RuntimeException("The user with id " + userId + " does not have enough money for "
+                        + count + " tickets with event id " + eventId);
+            }
+            List<TicketDto> tickets = saveBookedTickets(userId, event, category, places);
+            tickets.forEach(eventPublisher::publishEvent);
+            return tickets;
+        } catch (RuntimeException e) {
+            if (paid) {
+                accountLedger.credit(userId, totalPrice, "failed booking of the event " + eventId);
+            }
+            places.forEach(place -> seatRepository.releaseSeat(eventId, place, category));
+            freeSeatIndex.release(eventId, category, places);
+            eventCustomRepository.decrementSold(eventId, category, count);
+            throw e;
+        }
     }
 
-    private UserAccountMongo getUserAccount(String userId) {
-        return userAccountCustomRepository.findByUserId(String.valueOf(userId))
-                .orElseThrow(() -> new RuntimeException("Can not to find a user account by user id: " + userId));
+    /**
+     * Claims the places proposed by the free seat tree until the count is reached. A proposed place
+     * that is already booked in the seat inventory stays booked in the tree and the next one is proposed.
+     *
+     * @param event    the event
+     * @param category the category
+     * @param count    the number of places
+     * @param places   the claimed places
+     */
+    private void claimBestSeats(EventDto event, Category category, int count, List<Integer> places) {
+        int capacity = event.getCapacity().get(category);
+        while (places.size() < count) {
+            List<Integer> candidates = freeSeatIndex.bookBest(event.getId(), category, count - places.size(), () -> capacity,
+                    () -> seatRepository.findPlaces(event.getId(), category, SeatStatus.FREE, capacity));
+            if (candidates.isEmpty()) {
+                throw new RuntimeException("There are not " + count + " free places of the category " + category +
+                        " for the event with id " + event.getId());
+            }
+            candidates.stream()
+                    .filter(place -> seatRepository.claimSeat(event.getId(), place, category))
+                    .forEach(places::add);
+        }
+        places.sort(Comparator.naturalOrder());
     }
 
-    private void throwRuntimeExceptionIfEventNotExist(String eventId) {
-        if (!eventRepository.existsById(eventId)) {
-            throw new RuntimeException("The event with id " + eventId + " does not exist");
+    /**
+     * Claims the best fitting block of adjacent places proposed by the free interval index. When a place
+     * of the block is already booked in the seat inventory, it stays booked in the index,
+     * the rest of the block is freed again and the next block is proposed.
+     *
+     * @param event    the event
+     * @param category the category
+     * @param count    the number of places
+     * @param places   the claimed places
+     */
+    private void claimContiguousSeats(EventDto event, Category category, int count, List<Integer> places) {
+        int capacity = event.getCapacity().get(category);
+        while (places.isEmpty()) {
+            List<Integer> block = freeSeatIndex.bookBlock(event.getId(), category, count, () -> capacity,
+                    () -> seatRepository.findPlaces(event.getId(), category, SeatStatus.FREE, capacity));
+            if (block.isEmpty()) {
+                throw new RuntimeException("There are not " + count + " adjacent free places of the category " +
+                        category + " for the event with id " + event.getId());
+            }
+            List<Integer> claimed = new ArrayList<>();
+            for (int place : block) {
+                if (!seatRepository.claimSeat(event.getId(), place, category)) {
+                    break;
+                }
+                claimed.add(place);
+            }
+            if (claimed.size() == block.size()) {
+                places.addAll(block);
+            } else {
+                claimed.forEach(place -> seatRepository.releaseSeat(event.getId(), place, category));
+                List<Integer> unused = new ArrayList<>(block);
+                unused.remove(claimed.size());
+                freeSeatIndex.release(event.getId(), category, unused);
+            }
+        }
+    }
+
+    private List<TicketDto> saveBookedTickets(String userId, EventDto eventDto, Category category, List<Integer> places) {
+        UserMongo user = userRepository.findById(userId).get();
+        EventMongo event = EventDto.fromEventDtoToEventMongo(eventDto);
+        List<TicketMongo> tickets = places.stream()
+                .map(place -> createNewTicket(user, event, place, category))
+                .toList();
+        return ticketRepository.saveAll(tickets).stream()
+                .map(ticket -> TicketDto.fromMongoTicket(ticket, event, user))
+                .toList();
+    }
+
+    /**
+     * Saves the ticket. The event is only referenced by its id, so it is taken from the already read event
+     * instead of being loaded again.
+     */
+    private TicketDto saveBookedTicket(String userId, EventDto eventDto, int place, Category category) {
+        UserMongo user = userRepository.findById(userId).get();
+        EventMongo event = EventDto.fromEventDtoToEventMongo(eventDto);
+        TicketMongo saveTicked = ticketRepository.save(createNewTicket(user, event, place, category));
+        return TicketDto.fromMongoTicket(saveTicked, event, user);
+    }
+
+    private void throwRuntimeExceptionIfTicketAlreadyBooked(String eventId, int place, Category category) {
+        if (ticketCustomMongoRepository.existsByEventAndPlaceAndCategory(String.valueOf(eventId), place, category)) {
+            throw new RuntimeException("This ticket already booked");
         }
     }
 
+    private EventDto getEvent(String eventId) {
+        return Optional.ofNullable(eventService.getEventById(eventId))
+                .orElseThrow(() -> new RuntimeException("The event with id " + eventId + " does not exist"));
+    }
+
     private void throwRuntimeExceptionIfUserNotExist(String userId) {
         if (!userRepository.existsById(userId)) {
             throw new RuntimeException("The user with id " + userId + " does not exist");
         }
     }
 
-    private boolean userHasEnoughMoneyForTicket(UserAccountMongo userAccount, EventDto event) {
-        return userAccount.getMoney().compareTo(event.getTicketPrice()) > -1;
-    }
-
     /**
      * Create new ticket.
      *
@@ -134,6 +352,7 @@ public class TicketMongoServiceImpl implements TicketService {
         ticket.setEvent(event);
         ticket.setPlace(place);
         ticket.setCategory(category);
+        ticket.setEventHeader(EventHeaderMongo.of(event));
         return ticket;
     }
 
@@ -142,24 +361,23 @@ public class TicketMongoServiceImpl implements TicketService {
      *
      * @param user     the user
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the booked tickets
      */
     @Override
-    public List<TicketDto> getBookedTickets(UserDto user, int pageSize, int pageNum) {
+    public SliceDto<TicketDto> getBookedTickets(UserDto user, int pageSize, String cursor) {
         try {
             if (isUserNull(user)) {
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
-            Page<TicketDto> ticketsByUser = ticketCustomMongoRepository.getAllByUserId(
-                    PageRequest.of(pageNum - 1, pageSize),
-                    (user.getId()));
-            if (!ticketsByUser.hasContent()) {
+            List<TicketDto> ticketsByUser = ticketCustomMongoRepository.getAllByUserId(user.getId(),
+                    ContinuationToken.idAfter(cursor, ContinuationToken.MIN_OBJECT_ID), pageSize + 1);
+            if (ticketsByUser.isEmpty()) {
                 throw new RuntimeException("Can not to fina a list of booked tickets by user with id: " + user.getId());
             }
-            return ticketsByUser.getContent();
+            return SliceDto.of(ticketsByUser, pageSize, ticket -> ContinuationToken.of(ticket.getId()));
         } catch (RuntimeException e) {
-            return new ArrayList<>();
+            return SliceDto.empty();
         }
     }
 
@@ -178,21 +396,49 @@ public class TicketMongoServiceImpl implements TicketService {
      *
      * @param event    the event
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the booked tickets
      */
     @Override
-    public List<TicketDto> getBookedTickets(EventDto event, int pageSize, int pageNum) {
+    public SliceDto<TicketDto> getBookedTickets(EventDto event, int pageSize, String cursor) {
         try {
             if (isEventNull(event)) {
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
-            Page<TicketDto> ticketsByEvent = ticketCustomMongoRepository.getAllByEventId(
-                    PageRequest.of(pageNum - 1, pageSize), event.getId());
-            if (!ticketsByEvent.hasContent()) {
+            List<TicketDto> ticketsByEvent = ticketCustomMongoRepository.getAllByEventId(event.getId(),
+                    ContinuationToken.idAfter(cursor, ContinuationToken.MIN_OBJECT_ID), pageSize + 1);
+            if (ticketsByEvent.isEmpty()) {
                 throw new RuntimeException("Can not to fina a list of booked tickets by event with id: " + event.getId());
             }
-            return ticketsByEvent.getContent();
+            return SliceDto.of(ticketsByEvent, pageSize, ticket -> ContinuationToken.of(ticket.getId()));
+        } catch (RuntimeException e) {
+            return SliceDto.empty();
+        }
+    }
+
+    /**
+     * Gets booked tickets in the place bucket.
+     *
+     * @param event  the event
+     * @param bucket the number of the place bucket
+     * @return the booked tickets
+     */
+    @Override
+    public List<TicketDto> getBookedTicketsInBucket(EventDto event, int bucket) {
+        try {
+            if (isEventNull(event)) {
+                return new ArrayList<>();
+            }
+            return ticketCustomMongoRepository.getAllByEventIdInBucket(event.getId(), PlaceBucket.of(bucket));
+        } catch (RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<BookingTimeDto> getBookingsSince(Date since) {
+        try {
+            return ticketCustomMongoRepository.findBookingsSince(since);
         } catch (RuntimeException e) {
             return new ArrayList<>();
         }
@@ -217,10 +463,79 @@ public class TicketMongoServiceImpl implements TicketService {
     @Override
     public boolean cancelTicket(String ticketId) {
         try {
-            ticketRepository.deleteById(String.valueOf(ticketId));
-            return true;
+            return !cancel(List.of(ticketId)).isEmpty();
         } catch (RuntimeException e) {
             return false;
         }
     }
+
+    /**
+     * Cancel tickets int.
+     *
+     * @param ticketIds the ticket ids
+     * @return the number of canceled tickets
+     */
+    @Override
+    public int cancelTickets(List<String> ticketIds) {
+        try {
+            return cancel(ticketIds).size();
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Removes the tickets, then refunds every user once with the sum of its tickets,
+     * frees the seats with one bulk write and gives the seats back to the sold counters.
+     * All writes are done in one transaction, so a failure leaves neither removed tickets without
+     * a refund nor tickets marked as being canceled. Only a transaction failing with a transient
+     * transaction error, e.g. a write conflict with a concurrent append to the ledger of a user,
+     * is run again. The events are published once the transaction is committed.
+     *
+     * @param ticketIds the ticket ids
+     * @return the canceled tickets
+     */
+    private List<CanceledTicketDto> cancel(List<String> ticketIds) {
+        List<CanceledTicketDto> canceledTickets = null;
+        for (int attempt = 1; canceledTickets == null; attempt++) {
+            try {
+                canceledTickets = mongoTransaction.execute(status -> {
+                    List<CanceledTicketDto> tickets = ticketCustomMongoRepository.cancelTickets(ticketIds);
+                    refund(tickets);
+                    seatRepository.releaseSeats(tickets);
+                    eventCustomRepository.decrementSold(tickets);
+                    return tickets;
+                });
+            } catch (RuntimeException e) {
+                if (attempt == MAX_CANCEL_ATTEMPTS || !isTransientTransactionError(e)) {
+                    throw e;
+                }
+            }
+        }
+        canceledTickets.forEach(eventPublisher::publishEvent);
+        return canceledTickets;
+    }
+
+    /**
+     * Checks the error labels of the Mongo exception translated by Spring.
+     */
+    private boolean isTransientTransactionError(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refund(List<CanceledTicketDto> canceledTickets) {
+        Map<String, BigDecimal> refunds = canceledTickets.stream()
+                .filter(ticket -> Objects.nonNull(ticket.getUserId()))
+                .collect(Collectors.groupingBy(CanceledTicketDto::getUserId,
+                        Collectors.reducing(BigDecimal.ZERO, CanceledTicketDto::getPrice, BigDecimal::add)));
+        if (!refunds.isEmpty()) {
+            accountLedger.creditAll(refunds, "canceled tickets");
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package ua.epam.mishchenko.ticketbooking.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.model.EventHeaderMongo;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.model.TicketMongo;
+import ua.epam.mishchenko.ticketbooking.model.UserMongo;
+import ua.epam.mishchenko.ticketbooking.repository.TicketCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.UserCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.service.TicketRelayoutService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the tickets embedded in events by the migration into the ticket collection, the only store
+ * the tickets are read from. Every ticket gets the header of its event and its user from the user
+ * collection, then the embedded tickets are removed from the event. The tickets are upserted by event,
+ * place and category, so an interrupted run is completed by running it again.
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketRelayoutServiceImpl implements TicketRelayoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketRelayoutServiceImpl.class);
+
+    private static final String TICKETS = "tickets";
+
+    @Value("${properties.ticket_relayout_enabled}")
+    private boolean relayoutEnabled;
+    private final TicketCustomMongoRepository ticketCustomRepository;
+    private final UserCustomMongoRepository userCustomRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void relayout() {
+        if (!relayoutEnabled) {
+            return;
+        }
+        log.info("Moving embedded tickets to the ticket collection");
+
+        Map<String, UserMongo> users = new HashMap<>();
+        String eventCollection = mongoTemplate.getCollectionName(EventMongo.class);
+        Query withTickets = new BasicQuery(new Document(TICKETS + ".0", new Document("$exists", true)));
+        int events = 0;
+        int moved = 0;
+        try (CloseableIterator<Document> iterator =
+                     mongoTemplate.stream(withTickets, Document.class, eventCollection)) {
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                List<Document> embedded = document.getList(TICKETS, Document.class);
+                document.remove(TICKETS);
+                EventMongo event = mongoTemplate.getConverter().read(EventMongo.class, document);
+                List<TicketMongo> tickets = embedded.stream()
+                        .map(ticket -> toTicket(ticket, event, users))
+                        .toList();
+                moved += ticketCustomRepository.upsertTickets(tickets);
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(new ObjectId(event.getId()))),
+                        new Update().unset(TICKETS), eventCollection);
+                events++;
+            }
+        }
+        log.info("{} tickets of {} events were moved to the ticket collection", moved, events);
+
+        long headers = 0;
+        for (String eventId : ticketCustomRepository.findEventIdsWithoutHeader()) {
+            EventMongo event = mongoTemplate.findById(eventId, EventMongo.class);
+            if (event != null) {
+                headers += ticketCustomRepository.setMissingEventHeader(eventId, EventHeaderMongo.of(event));
+            }
+        }
+        log.info("The event header was added to {} tickets", headers);
+    }
+
+    private TicketMongo toTicket(Document embedded, EventMongo event, Map<String, UserMongo> users) {
+        TicketMongo ticket = mongoTemplate.getConverter().read(TicketMongo.class, embedded);
+        ticket.setId(null);
+        ticket.setEvent(event);
+        ticket.setEventHeader(EventHeaderMongo.of(event));
+        UserMongo user = ticket.getUser();
+        if (user != null && user.getEmail() != null) {
+            ticket.setUser(users.computeIfAbsent(user.getEmail(),
+                    email -> userCustomRepository.findOrCreateByEmail(user)));
+        }
+        return ticket;
+    }
+}
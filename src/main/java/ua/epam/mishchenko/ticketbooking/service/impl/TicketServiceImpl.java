@@ -2,29 +2,40 @@ package ua.epam.mishchenko.ticketbooking.service.impl;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import ua.epam.mishchenko.ticketbooking.dto.BookingTimeDto;
+import ua.epam.mishchenko.ticketbooking.dto.CanceledTicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
+import ua.epam.mishchenko.ticketbooking.inventory.FreeSeatIndex;
+import ua.epam.mishchenko.ticketbooking.inventory.SoldOutRegistry;
 import ua.epam.mishchenko.ticketbooking.model.Category;
 import ua.epam.mishchenko.ticketbooking.model.Event;
+import ua.epam.mishchenko.ticketbooking.model.SeatStatus;
 import ua.epam.mishchenko.ticketbooking.model.Ticket;
 import ua.epam.mishchenko.ticketbooking.model.User;
-import ua.epam.mishchenko.ticketbooking.model.UserAccount;
 import ua.epam.mishchenko.ticketbooking.repository.EventRepository;
+import ua.epam.mishchenko.ticketbooking.repository.SeatRepository;
 import ua.epam.mishchenko.ticketbooking.repository.TicketRepository;
 import ua.epam.mishchenko.ticketbooking.repository.UserAccountRepository;
 import ua.epam.mishchenko.ticketbooking.repository.UserRepository;
 import ua.epam.mishchenko.ticketbooking.service.TicketService;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
+import ua.epam.mishchenko.ticketbooking.utils.PlaceBucket;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -47,12 +58,26 @@ public class TicketServiceImpl implements TicketService {
 
     private final UserAccountRepository userAccountRepository;
 
+    private final SeatRepository seatRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SoldOutRegistry soldOutRegistry;
+
+    private final FreeSeatIndex freeSeatIndex;
+
     public TicketServiceImpl(UserRepository userRepository, EventRepository eventRepository,
-                             TicketRepository ticketRepository, UserAccountRepository userAccountRepository) {
+                             TicketRepository ticketRepository, UserAccountRepository userAccountRepository,
+                             SeatRepository seatRepository, ApplicationEventPublisher eventPublisher,
+                             SoldOutRegistry soldOutRegistry, FreeSeatIndex freeSeatIndex) {
         this.userRepository = userRepository;
         this.eventRepository = eventRepository;
         this.ticketRepository = ticketRepository;
         this.userAccountRepository = userAccountRepository;
+        this.seatRepository = seatRepository;
+        this.eventPublisher = eventPublisher;
+        this.soldOutRegistry = soldOutRegistry;
+        this.freeSeatIndex = freeSeatIndex;
     }
 
     /**
@@ -81,36 +106,244 @@ public class TicketServiceImpl implements TicketService {
     }
 
     private TicketDto processBookingTicket(long userId, long eventId, int place, Category category) {
+        throwRuntimeExceptionIfSoldOut(String.valueOf(eventId), category);
         throwRuntimeExceptionIfUserNotExist(userId);
         throwRuntimeExceptionIfEventNotExist(eventId);
-        throwRuntimeExceptionIfTicketAlreadyBooked(eventId, place, category);
-        UserAccount userAccount = getUserAccount(userId);
         EventDto event = getEvent(eventId);
-        throwRuntimeExceptionIfUserNotHaveEnoughMoney(userAccount, event);
-        buyTicket(userAccount, event);
+        reservePlace(event, place, category);
+        debitUserAccount(userId, event.getTicketPrice(), 1, eventId);
         TicketDto ticket = saveBookedTicket(userId, eventId, place, category);
+        eventPublisher.publishEvent(ticket);
         log.info("Successfully booking of the ticket: {}", ticket);
         return ticket;
     }
 
+    /**
+     * Book best available tickets. The free seat tree proposes the best free places, they are claimed
+     * in the seat inventory and paid by one conditional account update in the same transaction.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets in place order or an empty list if not all of them can be booked
+     */
+    @Override
+    @Transactional
+    public List<TicketDto> bookBestAvailable(String userId, String eventId, Category category, int count) {
+        return bookSeats(userId, eventId, category, count, false);
+    }
+
+    /**
+     * Book contiguous tickets. The free interval index proposes the best fitting block of adjacent free places,
+     * they are claimed in the seat inventory and paid by one conditional account update in the same transaction.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the tickets in place order or an empty list if no block of free places can be booked
+     */
+    @Override
+    @Transactional
+    public List<TicketDto> bookContiguous(String userId, String eventId, Category category, int count) {
+        return bookSeats(userId, eventId, category, count, true);
+    }
+
+    private List<TicketDto> bookSeats(String userId, String eventId, Category category, int count,
+                                      boolean contiguous) {
+        log.info("Start booking {} tickets (contiguous: {}) for user with id {}, event with id {}, category {}",
+                count, contiguous, userId, eventId, category);
+        List<Integer> places = new ArrayList<>();
+        try {
+            return processBookingSeats(Long.parseLong(userId), Long.parseLong(eventId), category, count,
+                    contiguous, places);
+        } catch (RuntimeException e) {
+            log.warn("Can not to book {} tickets (contiguous: {}) for user with id {}, event with id {}, category {}",
+                    count, contiguous, userId, eventId, category, e);
+            freeSeatIndex.release(eventId, category, places);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            log.warn("Transaction rollback");
+            return new ArrayList<>();
+        }
+    }
+
+    private List<TicketDto> processBookingSeats(long userId, long eventId, Category category, int count,
+                                                boolean contiguous, List<Integer> places) {
+        throwRuntimeExceptionIfCountNotPositive(count);
+        throwRuntimeExceptionIfSoldOut(String.valueOf(eventId), category);
+        throwRuntimeExceptionIfUserNotExist(userId);
+        throwRuntimeExceptionIfEventNotExist(eventId);
+        EventDto event = getEvent(eventId);
+        throwRuntimeExceptionIfNoSeatInventory(event, category);
+        takeSeatsFromSoldCounter(event, category, count);
+        if (contiguous) {
+            claimContiguousSeats(event, category, count, places);
+        } else {
+            claimBestSeats(event, category, count, places);
+        }
+        debitUserAccount(userId, event.getTicketPrice(), count, eventId);
+        List<TicketDto> tickets = places.stream()
+                .map(place -> saveBookedTicket(userId, eventId, place, category))
+                .toList();
+        tickets.forEach(eventPublisher::publishEvent);
+        log.info("Successfully booking of the tickets: {}", tickets);
+        return tickets;
+    }
+
+    /**
+     * Claims the places proposed by the free seat tree until the count is reached. A proposed place
+     * that is already booked in the seat inventory stays booked in the tree and the next one is proposed.
+     *
+     * @param event    the event
+     * @param category the category
+     * @param count    the number of places
+     * @param places   the claimed places
+     */
+    private void claimBestSeats(EventDto event, Category category, int count, List<Integer> places) {
+        long eventId = Long.parseLong(event.getId());
+        while (places.size() < count) {
+            List<Integer> candidates = freeSeatIndex.bookBest(event.getId(), category, count - places.size(),
+                    () -> event.getCapacity().get(category), () -> findFreePlaces(eventId, category));
+            if (candidates.isEmpty()) {
+                throw new RuntimeException("There are not " + count + " free places of the category " + category +
+                        " for the event with id " + eventId);
+            }
+            candidates.stream()
+                    .filter(place -> seatRepository.updateStatus(eventId, place, category,
+                            SeatStatus.FREE, SeatStatus.BOOKED) == 1)
+                    .forEach(places::add);
+        }
+        places.sort(Comparator.naturalOrder());
+    }
+
+    /**
+     * Claims the best fitting block of adjacent places proposed by the free interval index. When a place
+     * of the block is already booked in the seat inventory, it stays booked in the index,
+     * the rest of the block is freed again and the next block is proposed.
+     *
+     * @param event    the event
+     * @param category the category
+     * @param count    the number of places
+     * @param places   the claimed places
+     */
+    private void claimContiguousSeats(EventDto event, Category category, int count, List<Integer> places) {
+        long eventId = Long.parseLong(event.getId());
+        while (places.isEmpty()) {
+            List<Integer> block = freeSeatIndex.bookBlock(event.getId(), category, count,
+                    () -> event.getCapacity().get(category), () -> findFreePlaces(eventId, category));
+            if (block.isEmpty()) {
+                throw new RuntimeException("There are not " + count + " adjacent free places of the category " +
+                        category + " for the event with id " + eventId);
+            }
+            List<Integer> claimed = new ArrayList<>();
+            for (int place : block) {
+                if (seatRepository.updateStatus(eventId, place, category, SeatStatus.FREE, SeatStatus.BOOKED) == 0) {
+                    break;
+                }
+                claimed.add(place);
+            }
+            if (claimed.size() == block.size()) {
+                places.addAll(block);
+            } else {
+                claimed.forEach(place -> seatRepository.updateStatus(eventId, place, category,
+                        SeatStatus.BOOKED, SeatStatus.FREE));
+                List<Integer> unused = new ArrayList<>(block);
+                unused.remove(claimed.size());
+                freeSeatIndex.release(event.getId(), category, unused);
+            }
+        }
+    }
+
+    private List<Integer> findFreePlaces(long eventId, Category category) {
+        return seatRepository.findPlaces(eventId, category, SeatStatus.FREE, Pageable.unpaged());
+    }
+
+    private void throwRuntimeExceptionIfCountNotPositive(int count) {
+        if (count < 1) {
+            throw new RuntimeException("The number of tickets must be positive: " + count);
+        }
+    }
+
+    private void throwRuntimeExceptionIfNoSeatInventory(EventDto event, Category category) {
+        if (!event.hasSeatInventory(category)) {
+            throw new RuntimeException("The event with id " + event.getId() + " does not have seats of the category "
+                    + category);
+        }
+    }
+
     private TicketDto saveBookedTicket(long userId, long eventId, int place, Category category) {
         return TicketDto.fromSqlTicket(ticketRepository.save(createNewTicket(userId, eventId, place, category)));
     }
 
-    private void buyTicket(UserAccount userAccount, EventDto event) {
-        userAccount.setMoney(subtractTicketPriceFromUserMoney(userAccount, event));
+    /**
+     * Pays the tickets by one conditional update subtracting the price in the database, so parallel
+     * bookings, refills and refunds of the account can not overwrite each other.
+     *
+     * @param userId  the user id
+     * @param price   the price of one ticket
+     * @param count   the number of tickets
+     * @param eventId the event id
+     */
+    private void debitUserAccount(long userId, BigDecimal price, int count, long eventId) {
+        if (userAccountRepository.debit(userId, price.multiply(BigDecimal.valueOf(count))) == 0) {
+            throw new RuntimeException("The user with id " + userId + " does not have an account with enough money for "
+                    + count + " tickets with event id " + eventId);
+        }
+    }
+
+    /**
+     * Rejects the booking without touching the database if the category is known to be sold out.
+     *
+     * @param eventId  the event id
+     * @param category the category
+     */
+    private void throwRuntimeExceptionIfSoldOut(String eventId, Category category) {
+        if (soldOutRegistry.isSoldOut(eventId, category)) {
+            throw new RuntimeException("The category " + category + " of the event with id " + eventId + " is sold out");
+        }
     }
 
-    private BigDecimal subtractTicketPriceFromUserMoney(UserAccount userAccount, EventDto event) {
-        return userAccount.getMoney().subtract(event.getTicketPrice());
+    /**
+     * Reserves the place. Events with a seat inventory take one seat from the sold counter
+     * and claim the seat by conditional updates, the rest of events check that no ticket exists for the place.
+     *
+     * @param event    the event
+     * @param place    the place
+     * @param category the category
+     */
+    private void reservePlace(EventDto event, int place, Category category) {
+        long eventId = Long.parseLong(event.getId());
+        if (event.hasSeatInventory(category)) {
+            takeSeatsFromSoldCounter(event, category, 1);
+            claimSeat(eventId, place, category);
+        } else {
+            throwRuntimeExceptionIfTicketAlreadyBooked(eventId, place, category);
+        }
     }
 
-    private void throwRuntimeExceptionIfUserNotHaveEnoughMoney(UserAccount userAccount, EventDto event) {
-        if (!userHasEnoughMoneyForTicket(userAccount, event)) {
-            throw new RuntimeException(
-                    "The user with id " + userAccount.getUser().getId() +
-                            " does not have enough money for ticket with event id " + event.getId()
-            );
+    /**
+     * Takes the seats from the sold counter. The category is flagged as sold out when no seat is left,
+     * a refused request for several seats does not mean that the category is sold out.
+     *
+     * @param event    the event
+     * @param category the category
+     * @param count    the number of seats
+     */
+    private void takeSeatsFromSoldCounter(EventDto event, Category category, int count) {
+        if (event.isSoldOut(category)
+                || eventRepository.incrementSold(Long.parseLong(event.getId()), category.name(), count) == 0) {
+            if (count == 1 || event.isSoldOut(category)) {
+                soldOutRegistry.markSoldOut(event.getId(), category);
+            }
+            throw new RuntimeException("There are not " + count + " seats left of the category " + category +
+                    " for the event with id " + event.getId());
+        }
+    }
+
+    private void claimSeat(long eventId, int place, Category category) {
+        if (seatRepository.updateStatus(eventId, place, category, SeatStatus.FREE, SeatStatus.BOOKED) == 0) {
+            throw new RuntimeException("The place " + place + " of the category " + category + " is not free");
         }
     }
 
@@ -126,11 +359,6 @@ public class TicketServiceImpl implements TicketService {
                 .orElseThrow(() -> new RuntimeException("Can not to find an event by id: " + eventId));
     }
 
-    private UserAccount getUserAccount(long userId) {
-        return userAccountRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Can not to find a user account by user id: " + userId));
-    }
-
     private void throwRuntimeExceptionIfEventNotExist(long eventId) {
         if (!eventRepository.existsById(eventId)) {
             throw new RuntimeException("The event with id " + eventId + " does not exist");
@@ -143,10 +371,6 @@ public class TicketServiceImpl implements TicketService {
         }
     }
 
-    private boolean userHasEnoughMoneyForTicket(UserAccount userAccount, EventDto event) {
-        return userAccount.getMoney().compareTo(event.getTicketPrice()) > -1;
-    }
-
     /**
      * Create new ticket.
      *
@@ -167,37 +391,38 @@ public class TicketServiceImpl implements TicketService {
      *
      * @param user     the user
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the booked tickets
      */
     @Override
-    public List<TicketDto> getBookedTickets(UserDto user, int pageSize, int pageNum) {
-        log.info("Finding all booked tickets by user {} with page size {} and number of page {}",
-                user, pageSize, pageNum);
+    public SliceDto<TicketDto> getBookedTickets(UserDto user, int pageSize, String cursor) {
+        log.info("Finding all booked tickets by user {} with page size {} after {}",
+                user, pageSize, cursor);
         try {
             if (isUserNull(user)) {
                 log.warn("The user can not be a null");
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
 
-            Page<Ticket> pageResult = ticketRepository.getAllByUserId(
-                    PageRequest.of(pageNum - 1, pageSize), Long.parseLong(user.getId()));
+            List<Ticket> sliceResult = ticketRepository.getAllByUserIdAndIdGreaterThanOrderByIdAsc(
+                    Long.parseLong(user.getId()), Long.parseLong(ContinuationToken.idAfter(cursor, "0")),
+                    PageRequest.ofSize(pageSize + 1));
 
-            if (!pageResult.hasContent()) {
+            if (sliceResult.isEmpty()) {
                 throw new RuntimeException("Can not to fina a list of booked tickets by user with id: " + user.getId());
             }
 
-            List<TicketDto> ticketsByUser = pageResult.getContent().stream()
+            List<TicketDto> ticketsByUser = sliceResult.stream()
                     .map(TicketDto::fromSqlTicket)
                     .toList();
 
-            log.info("All booked tickets successfully found by user {} with page size {} and number of page {}",
-                    user, pageSize, pageNum);
+            log.info("All booked tickets successfully found by user {} with page size {} after {}",
+                    user, pageSize, cursor);
 
-            return ticketsByUser;
+            return SliceDto.of(ticketsByUser, pageSize, ticket -> ContinuationToken.of(ticket.getId()));
         } catch (RuntimeException e) {
             log.warn("Can not to find a list of booked tickets by user '{}'", user, e);
-            return new ArrayList<>();
+            return SliceDto.empty();
         }
     }
 
@@ -216,32 +441,81 @@ public class TicketServiceImpl implements TicketService {
      *
      * @param event    the event
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the booked tickets
      */
     @Override
-    public List<TicketDto> getBookedTickets(EventDto event, int pageSize, int pageNum) {
-        log.info("Finding all booked tickets by event {} with page size {} and number of page {}",
-                event, pageSize, pageNum);
+    public SliceDto<TicketDto> getBookedTickets(EventDto event, int pageSize, String cursor) {
+        log.info("Finding all booked tickets by event {} with page size {} after {}",
+                event, pageSize, cursor);
         try {
             if (isEventNull(event)) {
                 log.warn("The event can not be a null");
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
-            Page<Ticket> ticketsByEvent = ticketRepository.getAllByEventId(
-                    PageRequest.of(pageNum - 1, pageSize), Long.valueOf(event.getId()));
-            if (!ticketsByEvent.hasContent()) {
+            List<Ticket> ticketsByEvent = ticketRepository.getAllByEventIdAndIdGreaterThanOrderByIdAsc(
+                    Long.valueOf(event.getId()), Long.parseLong(ContinuationToken.idAfter(cursor, "0")),
+                    PageRequest.ofSize(pageSize + 1));
+            if (ticketsByEvent.isEmpty()) {
                 throw new RuntimeException("Can not to fina a list of booked tickets by event with id: " + event.getId());
             }
 
-            log.info("All booked tickets successfully found by event {} with page size {} and number of page {}",
-                    event, pageSize, pageNum);
-            return ticketsByEvent.stream()
+            log.info("All booked tickets successfully found by event {} with page size {} after {}",
+                    event, pageSize, cursor);
+            return SliceDto.of(ticketsByEvent.stream()
                     .map(TicketDto::fromSqlTicket)
-                    .toList();
+                    .toList(), pageSize, ticket -> ContinuationToken.of(ticket.getId()));
 
         } catch (RuntimeException e) {
             log.warn("Can not to find a list of booked tickets by event '{}'", event, e);
+            return SliceDto.empty();
+        }
+    }
+
+    /**
+     * Gets booked tickets in the place bucket.
+     *
+     * @param event  the event
+     * @param bucket the number of the place bucket
+     * @return the booked tickets
+     */
+    @Override
+    public List<TicketDto> getBookedTicketsInBucket(EventDto event, int bucket) {
+        log.info("Finding booked tickets by event {} in the place bucket {}", event, bucket);
+        try {
+            if (isEventNull(event)) {
+                log.warn("The event can not be a null");
+                return new ArrayList<>();
+            }
+            PlaceBucket placeBucket = PlaceBucket.of(bucket);
+            List<Ticket> ticketsInBucket = ticketRepository.getAllByEventIdAndPlaceBetweenOrderByPlaceAsc(
+                    Long.valueOf(event.getId()), placeBucket.getFirstPlace(), placeBucket.getLastPlace());
+            List<TicketDto> tickets = ticketsInBucket.stream()
+                    .map(TicketDto::fromSqlTicket)
+                    .toList();
+            log.info("{} booked tickets found by event {} in the place bucket {}", tickets.size(), event, bucket);
+            return tickets;
+        } catch (RuntimeException e) {
+            log.warn("Can not to find booked tickets by event '{}' in the place bucket {}", event, bucket, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Gets bookings since the time.
+     *
+     * @param since the start of the period
+     * @return the bookings
+     */
+    @Override
+    public List<BookingTimeDto> getBookingsSince(Date since) {
+        log.info("Finding the bookings since {}", since);
+        try {
+            List<BookingTimeDto> bookings = ticketRepository.findBookingsSince(since);
+            log.info("{} bookings found since {}", bookings.size(), since);
+            return bookings;
+        } catch (RuntimeException e) {
+            log.warn("Can not to find the bookings since {}", since, e);
             return new ArrayList<>();
         }
     }
@@ -257,21 +531,53 @@ public class TicketServiceImpl implements TicketService {
     }
 
     /**
-     * Cancel ticket boolean.
+     * Cancel ticket boolean. The ticket is deleted, its price is refunded
+     * and its seat is freed in one transaction.
      *
      * @param ticketId the ticket id
      * @return the boolean
      */
     @Override
+    @Transactional
     public boolean cancelTicket(String ticketId) {
         log.info("Start canceling a ticket with id: {}", ticketId);
         try {
-            ticketRepository.deleteById(Long.parseLong(ticketId));
+            if (cancel(List.of(Long.parseLong(ticketId))).isEmpty()) {
+                throw new RuntimeException("The ticket with id " + ticketId + " does not exist");
+            }
             log.info("Successfully canceling of the ticket with id: {}", ticketId);
             return true;
         } catch (RuntimeException e) {
             log.warn("Can not to cancel a ticket with id: {}", ticketId, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
+
+    /**
+     * Cancel tickets int. All tickets are canceled by one statement.
+     *
+     * @param ticketIds the ticket ids
+     * @return the number of canceled tickets
+     */
+    @Override
+    @Transactional
+    public int cancelTickets(List<String> ticketIds) {
+        log.info("Start canceling tickets with ids: {}", ticketIds);
+        try {
+            int canceled = cancel(ticketIds.stream().map(Long::parseLong).toList()).size();
+            log.info("Successfully canceling of {} tickets", canceled);
+            return canceled;
+        } catch (RuntimeException e) {
+            log.warn("Can not to cancel tickets with ids: {}", ticketIds, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return 0;
+        }
+    }
+
+    private List<CanceledTicketDto> cancel(List<Long> ticketIds) {
+        List<CanceledTicketDto> canceledTickets = ticketRepository.cancelAllByIdIn(ticketIds);
+        canceledTickets.forEach(eventPublisher::publishEvent);
+        return canceledTickets;
+    }
 }
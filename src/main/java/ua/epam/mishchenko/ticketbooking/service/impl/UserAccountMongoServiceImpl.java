@@ -3,66 +3,79 @@ package ua.epam.mishchenko.ticketbooking.service.impl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.dto.RefillResultDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserAccountDTO;
-import ua.epam.mishchenko.ticketbooking.model.UserAccountMongo;
-import ua.epam.mishchenko.ticketbooking.model.UserMongo;
-import ua.epam.mishchenko.ticketbooking.repository.UserAccountCustomMongoRepository;
-import ua.epam.mishchenko.ticketbooking.repository.UserMongoRepository;
+import ua.epam.mishchenko.ticketbooking.ledger.AccountLedger;
 import ua.epam.mishchenko.ticketbooking.service.UserAccountService;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Profile(value = "mongo")
 @Service
 @RequiredArgsConstructor
 public class UserAccountMongoServiceImpl implements UserAccountService {
 
-    private final UserMongoRepository userRepository;
+    private static final String REFILL = "refill";
 
-    private final UserAccountCustomMongoRepository userAccountRepository;
+    private final AccountLedger accountLedger;
 
     @Override
     public UserAccountDTO refillAccount(long userId, BigDecimal money) {
         try {
             thrownRuntimeExceptionIfMoneyLessZero(money);
-            throwRuntimeExceptionIfUserNotExist(userId);
-            var user = getUserAndRefillIfNotExistCreate(userId, money);
-            user = userRepository.save(user);
-            return new UserAccountDTO(user.getUserAccount().getMoney());
+            BigDecimal refilledMoney = accountLedger.credit(String.valueOf(userId), money, REFILL)
+                    .orElseThrow(() -> new RuntimeException("The user with id " + userId + " does not exist"));
+            return new UserAccountDTO(refilledMoney);
         } catch (RuntimeException e) {
             return null;
         }
     }
 
-    private void thrownRuntimeExceptionIfMoneyLessZero(BigDecimal money) {
-        if (money.compareTo(BigDecimal.ZERO) < 1) {
-            throw new RuntimeException("The money can not to be less zero");
+    /**
+     * Refills the accounts by one bulk insert of ledger credits, amounts which are not positive are not credited.
+     *
+     * @param amounts the amounts by user id
+     * @return the result of every credit in the order of the amounts
+     */
+    @Override
+    public List<RefillResultDto> refillAccounts(Map<String, BigDecimal> amounts) {
+        Map<String, BigDecimal> validAmounts = new LinkedHashMap<>();
+        amounts.forEach((userId, amount) -> {
+            if (isPositive(amount)) {
+                validAmounts.put(userId, amount);
+            }
+        });
+        try {
+            Set<String> refilled = validAmounts.isEmpty() ? Set.of() : accountLedger.creditAll(validAmounts, REFILL);
+            return amounts.entrySet().stream()
+                    .map(credit -> toResult(credit, refilled.contains(credit.getKey())
+                            ? RefillResultDto.Status.REFILLED : RefillResultDto.Status.USER_NOT_FOUND))
+                    .toList();
+        } catch (RuntimeException e) {
+            return amounts.entrySet().stream()
+                    .map(credit -> toResult(credit, RefillResultDto.Status.FAILED))
+                    .toList();
         }
     }
 
-    private UserMongo getUserAndRefillIfNotExistCreate(long userId, BigDecimal money) {
-        var userAccount = userAccountRepository.findByUserId(String.valueOf(userId)).orElse(null);
-        if (userAccount == null) {
-            return createNewUserAccount(userId, money);
+    private RefillResultDto toResult(Map.Entry<String, BigDecimal> credit, RefillResultDto.Status status) {
+        if (!isPositive(credit.getValue())) {
+            status = RefillResultDto.Status.INVALID_AMOUNT;
         }
-        BigDecimal money1 = userAccount.getMoney();
-        userAccount.setMoney(money1.add(money));
-        UserMongo userMongo = userRepository.findById(String.valueOf(userId)).get();
-        userMongo.setUserAccount(userAccount);
-        return userMongo;
+        return new RefillResultDto(credit.getKey(), credit.getValue(), status);
     }
 
-    private UserMongo createNewUserAccount(long userId, BigDecimal money) {
-        var userAccount = new UserAccountMongo();
-        userAccount.setMoney(money);
-        UserMongo userMongo = userRepository.findById(String.valueOf(userId)).get();
-        userMongo.setUserAccount(userAccount);
-        return userMongo;
+    private boolean isPositive(BigDecimal amount) {
+        return amount != null && amount.compareTo(BigDecimal.ZERO) > 0;
     }
 
-    private void throwRuntimeExceptionIfUserNotExist(long userId) {
-        if (!userRepository.existsById(String.valueOf(userId))) {
-            throw new RuntimeException("The user with id " + userId + " does not exist");
+    private void thrownRuntimeExceptionIfMoneyLessZero(BigDecimal money) {
+        if (money.compareTo(BigDecimal.ZERO) < 1) {
+            throw new RuntimeException("The money can not to be less zero");
         }
     }
 }
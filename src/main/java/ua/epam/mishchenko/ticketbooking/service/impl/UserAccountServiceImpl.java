@@ -1,16 +1,25 @@
 package ua.epam.mishchenko.ticketbooking.service.impl;
 
+import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import ua.epam.mishchenko.ticketbooking.config.QueryCacheRegions;
+import ua.epam.mishchenko.ticketbooking.dto.RefillResultDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserAccountDTO;
 import ua.epam.mishchenko.ticketbooking.model.UserAccount;
 import ua.epam.mishchenko.ticketbooking.repository.UserAccountRepository;
-import ua.epam.mishchenko.ticketbooking.repository.UserRepository;
 import ua.epam.mishchenko.ticketbooking.service.UserAccountService;
 
+import javax.persistence.EntityManagerFactory;
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Profile(value = "postgres")
 @Service
@@ -18,60 +27,104 @@ public class UserAccountServiceImpl implements UserAccountService {
 
     private static final Logger log = LoggerFactory.getLogger(UserAccountServiceImpl.class);
 
-    private final UserRepository userRepository;
-
     private final UserAccountRepository userAccountRepository;
 
-    public UserAccountServiceImpl(UserRepository userRepository, UserAccountRepository userAccountRepository) {
-        this.userRepository = userRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public UserAccountServiceImpl(UserAccountRepository userAccountRepository,
+                                  EntityManagerFactory entityManagerFactory) {
         this.userAccountRepository = userAccountRepository;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
+    /**
+     * Refills the account by one statement adding the money in the database, the account is created
+     * with the money when the user does not have one. Cached accounts and cached account lookups
+     * are evicted, the statement bypasses the second level cache.
+     *
+     * @param userId the user id
+     * @param money  the money to add
+     * @return the refilled account or null if the user does not exist or the money is not positive
+     */
     @Override
     public UserAccountDTO refillAccount(long userId, BigDecimal money) {
         log.info("Refilling user account for user with id: {}", userId);
         try {
             thrownRuntimeExceptionIfMoneyLessZero(money);
-            throwRuntimeExceptionIfUserNotExist(userId);
-            UserAccount userAccount = getUserAccountAndRefillIfNotExistCreate(userId, money);
-            userAccount = userAccountRepository.save(userAccount);
+            BigDecimal refilledMoney = userAccountRepository.refill(userId, money)
+                    .orElseThrow(() -> new RuntimeException("The user with id " + userId + " does not exist"));
+            entityManagerFactory.getCache().evict(UserAccount.class);
+            entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                    .evictQueryRegion(QueryCacheRegions.USER_ACCOUNTS);
             log.info("The user account with user id {} successfully refilled", userId);
-            return new UserAccountDTO(userAccount.getMoney());
+            return new UserAccountDTO(refilledMoney);
         } catch (RuntimeException e) {
             log.warn("Can not to refill account with user id: {}", userId);
             return null;
         }
     }
 
-    private void thrownRuntimeExceptionIfMoneyLessZero(BigDecimal money) {
-        if (money.compareTo(BigDecimal.ZERO) < 1) {
-            throw new RuntimeException("The money can not to be less zero");
+    /**
+     * Refills the accounts by one statement per batch of users in one transaction, amounts which are
+     * not positive or users with an invalid id are not credited.
+     *
+     * @param amounts the amounts by user id
+     * @return the result of every credit in the order of the amounts
+     */
+    @Override
+    @Transactional
+    public List<RefillResultDto> refillAccounts(Map<String, BigDecimal> amounts) {
+        log.info("Refilling {} user accounts", amounts.size());
+        Map<Long, BigDecimal> validAmounts = new LinkedHashMap<>();
+        amounts.forEach((userId, amount) -> {
+            Long id = parseUserId(userId);
+            if (id != null && isPositive(amount)) {
+                validAmounts.put(id, amount);
+            }
+        });
+        try {
+            Set<Long> refilled = validAmounts.isEmpty() ? Set.of() : userAccountRepository.refillAll(validAmounts);
+            log.info("{} of {} user accounts successfully refilled", refilled.size(), amounts.size());
+            return amounts.entrySet().stream()
+                    .map(credit -> toResult(credit, isRefilled(credit.getKey(), refilled)
+                            ? RefillResultDto.Status.REFILLED : RefillResultDto.Status.USER_NOT_FOUND))
+                    .toList();
+        } catch (RuntimeException e) {
+            log.warn("Can not to refill {} user accounts", amounts.size(), e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return amounts.entrySet().stream()
+                    .map(credit -> toResult(credit, RefillResultDto.Status.FAILED))
+                    .toList();
+        }
+    }
+
+    private RefillResultDto toResult(Map.Entry<String, BigDecimal> credit, RefillResultDto.Status status) {
+        if (!isPositive(credit.getValue())) {
+            status = RefillResultDto.Status.INVALID_AMOUNT;
         }
+        return new RefillResultDto(credit.getKey(), credit.getValue(), status);
     }
 
-    private UserAccount getUserAccountAndRefillIfNotExistCreate(long userId, BigDecimal money) {
-        UserAccount userAccount = userAccountRepository.findById(userId).orElse(null);
-        if (userAccount == null) {
-            return createNewUserAccount(userId, money);
+    private boolean isRefilled(String userId, Set<Long> refilled) {
+        Long id = parseUserId(userId);
+        return id != null && refilled.contains(id);
+    }
+
+    private Long parseUserId(String userId) {
+        try {
+            return Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
         }
-        BigDecimal money1 = userAccount.getMoney();
-        userAccount.setMoney(money1.add(money));
-        return userAccount;
     }
 
-    private UserAccount createNewUserAccount(long userId, BigDecimal money) {
-        log.info("The user account with user id {} does not exist", userId);
-        log.info("Creating new user account for user with id {}", userId);
-        UserAccount userAccount = new UserAccount();
-        userAccount.setUser(userRepository.findById(userId).get());
-        userAccount.setMoney(money);
-        log.info("The user account for user with id {} successfully created", userId);
-        return userAccount;
+    private boolean isPositive(BigDecimal amount) {
+        return amount != null && amount.compareTo(BigDecimal.ZERO) > 0;
     }
 
-    private void throwRuntimeExceptionIfUserNotExist(long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new RuntimeException("The user with id " + userId + " does not exist");
+    private void thrownRuntimeExceptionIfMoneyLessZero(BigDecimal money) {
+        if (money.compareTo(BigDecimal.ZERO) < 1) {
+            throw new RuntimeException("The money can not to be less zero");
         }
     }
 }
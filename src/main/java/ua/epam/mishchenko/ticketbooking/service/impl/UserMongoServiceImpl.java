@@ -4,13 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.model.UserMongo;
 import ua.epam.mishchenko.ticketbooking.repository.UserMongoRepository;
 import ua.epam.mishchenko.ticketbooking.service.UserService;
-
-import java.util.ArrayList;
-import java.util.List;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
 
 @Profile(value = "mongo")
 @Service
@@ -45,19 +44,19 @@ public class UserMongoServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserDto> getUsersByName(String name, int pageSize, int pageNum) {
+    public SliceDto<UserDto> getUsersByName(String name, int pageSize, String cursor) {
         try {
             if (name.isEmpty()) {
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
-            var usersByName = userRepository.getAllByName(PageRequest.of(pageNum - 1, pageSize), name);
+            var usersByName = userRepository.getAllByNameAndIdGreaterThanOrderByIdAsc(name,
+                    ContinuationToken.idAfter(cursor, ContinuationToken.MIN_OBJECT_ID), PageRequest.ofSize(pageSize + 1));
 
-            return usersByName.getContent()
-                    .stream()
+            return SliceDto.of(usersByName.stream()
                     .map(UserDto::fromUserMongoToUserDto)
-                    .toList();
+                    .toList(), pageSize, user -> ContinuationToken.of(user.getId()));
         } catch (RuntimeException e) {
-            return new ArrayList<>();
+            return SliceDto.empty();
         }
     }
 
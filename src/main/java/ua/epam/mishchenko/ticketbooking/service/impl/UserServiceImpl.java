@@ -3,15 +3,15 @@ package ua.epam.mishchenko.ticketbooking.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.model.User;
 import ua.epam.mishchenko.ticketbooking.repository.UserRepository;
 import ua.epam.mishchenko.ticketbooking.service.UserService;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -84,29 +84,30 @@ public class UserServiceImpl implements UserService {
      *
      * @param name     the name
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous slice or null for the first slice
      * @return the users by name
      */
     @Override
-    public List<UserDto> getUsersByName(String name, int pageSize, int pageNum) {
-        log.info("Finding all users by name {} with page size {} and number of page {}", name, pageSize, pageNum);
+    public SliceDto<UserDto> getUsersByName(String name, int pageSize, String cursor) {
+        log.info("Finding all users by name {} with page size {} after {}", name, pageSize, cursor);
         try {
             if (name.isEmpty()) {
                 log.warn("The name can not be null");
-                return new ArrayList<>();
+                return SliceDto.empty();
             }
-            Page<User> usersByName = userRepository.getAllByName(PageRequest.of(pageNum - 1, pageSize), name);
-            if (!usersByName.hasContent()) {
+            List<User> usersByName = userRepository.getAllByNameAndIdGreaterThanOrderByIdAsc(name,
+                    Long.parseLong(ContinuationToken.idAfter(cursor, "0")), PageRequest.ofSize(pageSize + 1));
+            if (usersByName.isEmpty()) {
                 log.warn("Can not to find a list of users by name '{}'", name);
             }
-            log.info("All users successfully found by name {} with page size {} and number of page {}",
-                    name, pageSize, pageNum);
-            return usersByName.getContent().stream()
+            log.info("All users successfully found by name {} with page size {} after {}",
+                    name, pageSize, cursor);
+            return SliceDto.of(usersByName.stream()
                     .map(UserDto::fromUserToUserDto)
-                    .toList();
+                    .toList(), pageSize, user -> ContinuationToken.of(user.getId()));
         } catch (RuntimeException e) {
             log.warn("Can not to find a list of users by name '{}'", name, e);
-            return new ArrayList<>();
+            return SliceDto.empty();
         }
     }
 
@@ -0,0 +1,121 @@
+package ua.epam.mishchenko.ticketbooking.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * The position after the last row of a slice: the sort key of the row, if the list is sorted by one,
+ * and the row id that breaks ties. The next slice starts right after it, so it is found by an index seek
+ * and costs the same however deep the list is. The token is passed to clients as an opaque URL safe string.
+ */
+public final class ContinuationToken {
+
+    /**
+     * The lowest Mongo object id, the first slice of a list ordered by object id starts after it.
+     */
+    public static final String MIN_OBJECT_ID = "000000000000000000000000";
+
+    private static final char SEPARATOR = '|';
+
+    private final Long sortKey;
+
+    private final String id;
+
+    private ContinuationToken(Long sortKey, String id) {
+        this.sortKey = sortKey;
+        this.id = Objects.requireNonNull(id, "The id of the continuation token can not be null");
+    }
+
+    public static ContinuationToken of(String id) {
+        return new ContinuationToken(null, id);
+    }
+
+    public static ContinuationToken of(Date date, String id) {
+        return new ContinuationToken(date.getTime(), id);
+    }
+
+    /**
+     * Decodes the token sent by a client.
+     *
+     * @param token the encoded token
+     * @return the token or null if the token is null or blank, that is the first slice is requested
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static ContinuationToken decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0 || separator == value.length() - 1) {
+            throw new IllegalArgumentException("Malformed continuation token: " + token);
+        }
+        String id = value.substring(separator + 1);
+        if (separator == 0) {
+            return of(id);
+        }
+        try {
+            return new ContinuationToken(Long.parseLong(value.substring(0, separator)), id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed continuation token: " + token, e);
+        }
+    }
+
+    /**
+     * Gets the id the slice requested by the cursor starts after, for lists ordered by id only.
+     *
+     * @param cursor  the encoded token or null for the first slice
+     * @param firstId the id the first slice starts after
+     * @return the id
+     */
+    public static String idAfter(String cursor, String firstId) {
+        ContinuationToken after = decode(cursor);
+        return after == null ? firstId : after.getId();
+    }
+
+    public String encode() {
+        String value = (sortKey == null ? "" : sortKey.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean hasSortKey() {
+        return sortKey != null;
+    }
+
+    /**
+     * Gets the sort key as a date.
+     *
+     * @return the date
+     * @throws IllegalStateException if the token has no sort key
+     */
+    public Date getDate() {
+        if (sortKey == null) {
+            throw new IllegalStateException("The continuation token has no sort key");
+        }
+        return new Date(sortKey);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ContinuationToken that = (ContinuationToken) o;
+        return Objects.equals(sortKey, that.sortKey) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sortKey, id);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
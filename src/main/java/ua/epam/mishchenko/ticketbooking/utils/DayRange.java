@@ -0,0 +1,51 @@
+package ua.epam.mishchenko.ticketbooking.utils;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * The half-open range [start of the day, start of the next day) of the day holding an instant in a time zone.
+ * The day is not assumed to last 24 hours, days of a daylight saving change are 23 or 25 hours long.
+ */
+public final class DayRange {
+
+    private final Date from;
+
+    private final Date to;
+
+    private DayRange(Date from, Date to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Gets the range of the day holding the instant.
+     *
+     * @param day  any instant of the day
+     * @param zone the time zone of the day
+     * @return the range
+     */
+    public static DayRange of(Date day, ZoneId zone) {
+        ZonedDateTime start = day.toInstant().atZone(zone).toLocalDate().atStartOfDay(zone);
+        return new DayRange(Date.from(start.toInstant()), Date.from(start.plusDays(1).toInstant()));
+    }
+
+    /**
+     * Gets the start of the day, inclusive.
+     *
+     * @return the start of the day
+     */
+    public Date getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the start of the next day, exclusive.
+     *
+     * @return the start of the next day
+     */
+    public Date getTo() {
+        return to;
+    }
+}
@@ -0,0 +1,68 @@
+package ua.epam.mishchenko.ticketbooking.utils;
+
+/**
+ * A fixed range of places of an event. The tickets of an event are read bucket by bucket as one range scan
+ * of the (event, place) index, so any bucket of a large event is read directly and never holds more than
+ * {@link #SIZE} places, however many tickets the event has.
+ */
+public final class PlaceBucket {
+
+    /**
+     * The number of places in a bucket.
+     */
+    public static final int SIZE = 500;
+
+    private final int number;
+
+    private PlaceBucket(int number) {
+        this.number = number;
+    }
+
+    /**
+     * Gets the bucket by its number.
+     *
+     * @param number the number of the bucket, starting with 0
+     * @return the bucket
+     */
+    public static PlaceBucket of(int number) {
+        if (number < 0) {
+            throw new IllegalArgumentException("The bucket number can not be negative: " + number);
+        }
+        return new PlaceBucket(number);
+    }
+
+    /**
+     * Gets the bucket holding the place.
+     *
+     * @param place the place, starting with 1
+     * @return the bucket
+     */
+    public static PlaceBucket ofPlace(int place) {
+        if (place < 1) {
+            throw new IllegalArgumentException("The place must be positive: " + place);
+        }
+        return new PlaceBucket((place - 1) / SIZE);
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the first place of the bucket, inclusive.
+     *
+     * @return the first place
+     */
+    public int getFirstPlace() {
+        return number * SIZE + 1;
+    }
+
+    /**
+     * Gets the last place of the bucket, inclusive.
+     *
+     * @return the last place
+     */
+    public int getLastPlace() {
+        return (number + 1) * SIZE;
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.facade.impl.BookingFacadeImpl;
@@ -59,17 +60,17 @@ public class BookedTicketsPDFController {
      *
      * @param userId   the user id
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous page, the first page if absent
      * @return the booked tickets by user pdf
      */
     @GetMapping("/{userId}")
     public ResponseEntity<Object> getBookedTicketsByUserPDF(@PathVariable String userId,
                                                             @RequestParam int pageSize,
-                                                            @RequestParam int pageNum) {
+                                                            @RequestParam(required = false) String cursor) {
         log.info("Showing the tickets by user with id: {}", userId);
 
         UserDto userById = getUserById(userId);
-        List<TicketDto> bookedTickets = getBookedTickets(userId, pageSize, pageNum, userById);
+        List<TicketDto> bookedTickets = getBookedTickets(userId, pageSize, cursor, userById);
 
         log.info("The tickets successfully found");
 
@@ -96,12 +97,12 @@ public class BookedTicketsPDFController {
      *
      * @param userId   the user id
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous page, the first page if absent
      * @param userById the user by id
      * @return the booked tickets
      */
-    private List<TicketDto> getBookedTickets(String userId, int pageSize, int pageNum, UserDto userById) {
-        List<TicketDto> bookedTickets = bookingFacade.getBookedTickets(userById, pageSize, pageNum);
+    private List<TicketDto> getBookedTickets(String userId, int pageSize, String cursor, UserDto userById) {
+        List<TicketDto> bookedTickets = bookingFacade.getBookedTickets(userById, pageSize, cursor).getContent();
         if (bookedTickets.isEmpty()) {
             log.info("Can not to find the tickets by user with id: {}", userId);
             throw new RuntimeException("Can not to find the tickets by user with id: " + userId);
@@ -10,13 +10,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
+import ua.epam.mishchenko.ticketbooking.dto.TrendingEventDto;
 import ua.epam.mishchenko.ticketbooking.facade.impl.BookingFacadeImpl;
+import ua.epam.mishchenko.ticketbooking.model.Category;
 
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -85,21 +91,21 @@ public class EventsController {
      *
      * @param title    the title
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous page, the first page if absent
      * @return the model and view
      */
     @GetMapping("/title/{title}")
     public ModelAndView showEventsByTitle(@PathVariable String title,
                                           @RequestParam int pageSize,
-                                          @RequestParam int pageNum) {
+                                          @RequestParam(required = false) String cursor) {
         log.info("Showing events by title: {}", title);
         Map<String, Object> model = new HashMap<>();
-        List<EventDto> eventsByTitle = bookingFacade.getEventsByTitle(title, pageSize, pageNum);
-        if (eventsByTitle.isEmpty()) {
+        SliceDto<EventDto> eventsByTitle = bookingFacade.getEventsByTitle(title, pageSize, cursor);
+        if (!eventsByTitle.hasContent()) {
             model.put("message", "Can not to get events by title: " + title);
             log.info("Can not to get events by title: {}", title);
         } else {
-            model.put("events", eventsByTitle);
+            putSlice(model, "events", eventsByTitle);
             log.info("Events by title '{}' successfully found", title);
         }
         return new ModelAndView("events", model);
@@ -110,23 +116,23 @@ public class EventsController {
      *
      * @param day      the day
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous page, the first page if absent
      * @return the model and view
      */
     @GetMapping("/day/{day}")
     public ModelAndView showEventsForDay(@PathVariable String day,
                                          @RequestParam int pageSize,
-                                         @RequestParam int pageNum) {
+                                         @RequestParam(required = false) String cursor) {
         log.info("Showing events for day: {}", day);
         Map<String, Object> model = new HashMap<>();
         try {
             Date date = parseFromStringToDate(day);
-            List<EventDto> eventsForDay = bookingFacade.getEventsForDay(date, pageSize, pageNum);
-            if (eventsForDay.isEmpty()) {
+            SliceDto<EventDto> eventsForDay = bookingFacade.getEventsForDay(date, pageSize, cursor);
+            if (!eventsForDay.hasContent()) {
                 model.put("message", "Can not to get events for day: " + day);
                 log.info("Can not to get events for day: {}", day);
             } else {
-                model.put("events", eventsForDay);
+                putSlice(model, "events", eventsForDay);
                 log.info("Events for day: {} successfully found", day);
             }
         } catch (RuntimeException e) {
@@ -136,21 +142,190 @@ public class EventsController {
         return new ModelAndView("events", model);
     }
 
+    /**
+     * Show events between the dates model and view, e.g. for a calendar view.
+     *
+     * @param from     the start of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @param pageSize the page size
+     * @param cursor   the continuation token of the previous page, the first page if absent
+     * @return the model and view
+     */
+    @GetMapping("/between")
+    public ModelAndView showEventsBetween(@RequestParam String from,
+                                          @RequestParam String to,
+                                          @RequestParam int pageSize,
+                                          @RequestParam(required = false) String cursor) {
+        log.info("Showing events between {} and {}", from, to);
+        Map<String, Object> model = new HashMap<>();
+        try {
+            SliceDto<EventDto> eventsBetween = bookingFacade.getEventsBetween(parseFromStringToDate(from),
+                    parseFromStringToDate(to), pageSize, cursor);
+            if (!eventsBetween.hasContent()) {
+                model.put("message", "Can not to get events between " + from + " and " + to);
+                log.info("Can not to get events between {} and {}", from, to);
+            } else {
+                putSlice(model, "events", eventsBetween);
+                log.info("Events between {} and {} successfully found", from, to);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Can not to get events between {} and {}", from, to, e);
+            model.put("message", "Can not to parse string " + from + " or " + to + " to date object");
+        }
+        return new ModelAndView("events", model);
+    }
+
+    /**
+     * Show events matching the words of the title model and view, the best matching events first.
+     *
+     * @param text  the words to search
+     * @param limit the maximum number of events
+     * @return the model and view
+     */
+    @GetMapping("/search")
+    public ModelAndView searchEvents(@RequestParam String text,
+                                     @RequestParam(defaultValue = "20") int limit) {
+        log.info("Searching events by title text: {}", text);
+        Map<String, Object> model = new HashMap<>();
+        List<EventDto> events = bookingFacade.searchEventsByTitle(text, limit);
+        if (events.isEmpty()) {
+            model.put("message", "Can not to find events by title text: " + text);
+            log.info("Can not to find events by title text: {}", text);
+        } else {
+            model.put("events", events);
+            log.info("Events by title text '{}' successfully found", text);
+        }
+        return new ModelAndView("events", model);
+    }
+
+    /**
+     * Suggest event titles starting with the prefix, for type-ahead.
+     *
+     * @param prefix the prefix
+     * @param limit  the maximum number of titles
+     * @return the titles in alphabetical order
+     */
+    @GetMapping("/suggest")
+    @ResponseBody
+    public List<String> suggestTitles(@RequestParam String prefix,
+                                      @RequestParam(defaultValue = "10") int limit) {
+        return bookingFacade.suggestTitles(prefix, limit);
+    }
+
+    /**
+     * Shows the events with the most tickets booked in the last hour, for the home page.
+     *
+     * @param limit the maximum number of events
+     * @return the most booked events first
+     */
+    @GetMapping("/trending")
+    @ResponseBody
+    public List<TrendingEventDto> trendingEvents(@RequestParam(defaultValue = "10") int limit) {
+        return bookingFacade.getTrendingEvents(limit);
+    }
+
+    /**
+     * Put the slice content and the link to the next slice to the model.
+     *
+     * @param model the model
+     * @param name  the name of the content
+     * @param slice the slice
+     */
+    private void putSlice(Map<String, Object> model, String name, SliceDto<?> slice) {
+        model.put(name, slice.getContent());
+        if (slice.hasNext()) {
+            model.put("next", ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", slice.getNext())
+                    .toUriString());
+        }
+    }
+
+    /**
+     * Show free seats of the event model and view.
+     *
+     * @param id       the id
+     * @param category the category
+     * @param limit    the maximum number of free places to show
+     * @return the model and view
+     */
+    @GetMapping("/{id}/seats")
+    public ModelAndView showFreeSeats(@PathVariable String id,
+                                      @RequestParam Category category,
+                                      @RequestParam(defaultValue = "50") int limit) {
+        log.info("Showing free seats of the event with id: {} and category: {}", id, category);
+        Map<String, Object> model = new HashMap<>();
+        if (bookingFacade.isSoldOut(id, category)) {
+            model.put("message", "The category " + category + " of the event with id: " + id + " is sold out");
+            log.info("The category {} of the event with id: {} is sold out", category, id);
+            return new ModelAndView("event", model);
+        }
+        EventDto eventById = bookingFacade.getEventById(id);
+        if (isNull(eventById) || !eventById.hasSeatInventory(category)) {
+            model.put("message", "Can not to get seats of the event with id: " + id + " and category: " + category);
+            log.info("Can not to get seats of the event with id: {} and category: {}", id, category);
+        } else if (eventById.isSoldOut(category)) {
+            model.put("event", eventById);
+            model.put("message", "The category " + category + " of the event with id: " + id + " is sold out");
+            log.info("The category {} of the event with id: {} is sold out", category, id);
+        } else {
+            model.put("event", eventById);
+            model.put("category", category);
+            model.put("availableSeats", bookingFacade.getAvailableSeatsCount(id, category));
+            model.put("freePlaces", bookingFacade.getFreePlaces(id, category, limit));
+            log.info("Free seats of the event with id: {} successfully found", id);
+        }
+        return new ModelAndView("event", model);
+    }
+
+    /**
+     * Show the best fitting block of adjacent free seats of the event model and view.
+     *
+     * @param id       the id
+     * @param category the category
+     * @param count    the number of adjacent seats
+     * @return the model and view
+     */
+    @GetMapping("/{id}/seats/contiguous")
+    public ModelAndView showContiguousSeats(@PathVariable String id,
+                                            @RequestParam Category category,
+                                            @RequestParam int count) {
+        log.info("Showing {} adjacent free seats of the event with id: {} and category: {}", count, id, category);
+        Map<String, Object> model = new HashMap<>();
+        List<Integer> block = bookingFacade.findContiguousPlaces(id, category, count);
+        if (block.isEmpty()) {
+            model.put("message", "There are not " + count + " adjacent free seats of the event with id: " + id +
+                    " and category: " + category);
+            log.info("There are not {} adjacent free seats of the event with id: {} and category: {}",
+                    count, id, category);
+        } else {
+            model.put("category", category);
+            model.put("freePlaces", block);
+            model.put("availableSeats", block.size());
+            log.info("Adjacent free seats of the event with id: {} successfully found", id);
+        }
+        return new ModelAndView("event", model);
+    }
+
     /**
      * Create event model and view.
      *
-     * @param title the title
-     * @param day   the day
+     * @param title    the title
+     * @param day      the day
+     * @param price    the price
+     * @param capacity the capacity per category in the CATEGORY:count format, creates a seat inventory
      * @return the model and view
      */
     @PostMapping
     public ModelAndView createEvent(@RequestParam String title,
                                     @RequestParam String day,
-                                    @RequestParam BigDecimal price) {
-        log.info("Creating an event with title={} and day={} and price={}", title, day, price);
+                                    @RequestParam BigDecimal price,
+                                    @RequestParam(required = false) List<String> capacity) {
+        log.info("Creating an event with title={} and day={} and price={} and capacity={}", title, day, price, capacity);
         Map<String, Object> model = new HashMap<>();
         try {
-            EventDto event = bookingFacade.createEvent(createEventEntityWithoutId(title, day, price));
+            EventDto eventDto = createEventEntityWithoutId(title, day, price);
+            eventDto.setCapacity(parseCapacity(capacity));
+            EventDto event = bookingFacade.createEvent(eventDto);
             if (isNull(event)) {
                 model.put("message", "Can not to create an event");
                 log.info("Can not to create an event");
@@ -159,8 +334,8 @@ public class EventsController {
                 log.info("The event successfully created");
             }
         } catch (RuntimeException e) {
-            log.error("Can not to parse string {} to date object", day, e);
-            model.put("message", "Can not to parse string " + day + " to date object");
+            log.error("Can not to parse string {} to date object or capacity {}", day, capacity, e);
+            model.put("message", "Can not to parse string " + day + " to date object or capacity " + capacity);
         }
         return new ModelAndView("event", model);
     }
@@ -181,6 +356,28 @@ public class EventsController {
         return eventDto;
     }
 
+    /**
+     * Parse capacity per category.
+     *
+     * @param capacity the capacity values in the CATEGORY:count format
+     * @return the capacity per category
+     */
+    private Map<Category, Integer> parseCapacity(List<String> capacity) {
+        Map<Category, Integer> capacityPerCategory = new EnumMap<>(Category.class);
+        if (capacity == null) {
+            return capacityPerCategory;
+        }
+        for (String value : capacity) {
+            String[] categoryAndCount = value.split(":");
+            if (categoryAndCount.length != 2) {
+                throw new RuntimeException("Can not to parse capacity " + value);
+            }
+            capacityPerCategory.put(Category.valueOf(categoryAndCount[0].trim()),
+                    Integer.parseInt(categoryAndCount[1].trim()));
+        }
+        return capacityPerCategory;
+    }
+
     /**
      * Parse from string to date date.
      *
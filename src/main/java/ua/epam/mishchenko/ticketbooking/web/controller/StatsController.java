@@ -0,0 +1,169 @@
+package ua.epam.mishchenko.ticketbooking.web.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ua.epam.mishchenko.ticketbooking.config.MongoTrafficListener;
+import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.EventStatsDto;
+import ua.epam.mishchenko.ticketbooking.facade.BookingFacade;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The type Stats controller.
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    /**
+     * The event cache, present only in the mongo profile.
+     */
+    private final ObjectProvider<Cache<String, EventDto>> eventCache;
+
+    /**
+     * The Mongo traffic listener.
+     */
+    private final MongoTrafficListener mongoTrafficListener;
+
+    /**
+     * The Booking facade.
+     */
+    private final BookingFacade bookingFacade;
+
+    /**
+     * The entity manager factory.
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Instantiates a new Stats controller.
+     *
+     * @param eventCache           the event cache
+     * @param mongoTrafficListener the mongo traffic listener
+     * @param bookingFacade        the booking facade
+     * @param entityManagerFactory the entity manager factory
+     */
+    public StatsController(ObjectProvider<Cache<String, EventDto>> eventCache,
+                           MongoTrafficListener mongoTrafficListener, BookingFacade bookingFacade,
+                           EntityManagerFactory entityManagerFactory) {
+        this.eventCache = eventCache;
+        this.mongoTrafficListener = mongoTrafficListener;
+        this.bookingFacade = bookingFacade;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Shows hit, miss and eviction statistics of the event cache.
+     *
+     * @return the statistics or not found if the event cache is not used by the active profile
+     */
+    @GetMapping("/cache/events")
+    public ResponseEntity<Map<String, Object>> eventCacheStats() {
+        Cache<String, EventDto> cache = eventCache.getIfAvailable();
+        if (cache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        CacheStats stats = cache.stats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", cache.estimatedSize());
+        body.put("hitCount", stats.hitCount());
+        body.put("missCount", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictionCount", stats.evictionCount());
+        body.put("loadSuccessCount", stats.loadSuccessCount());
+        body.put("loadFailureCount", stats.loadFailureCount());
+        body.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Shows hit, miss, put and eviction statistics of every region of the Hibernate second level cache,
+     * entity regions as well as query result regions. Hits, misses and puts are counted by Hibernate,
+     * the size and evictions by the Caffeine cache of the region.
+     *
+     * @return the statistics by region name
+     */
+    @GetMapping("/cache/hibernate")
+    public ResponseEntity<Map<String, Map<String, Object>>> hibernateCacheStats() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        RegionFactory regionFactory = sessionFactory.getCache().getRegionFactory();
+        CacheManager cacheManager = regionFactory instanceof JCacheRegionFactory
+                ? ((JCacheRegionFactory) regionFactory).getCacheManager() : null;
+        Map<String, Map<String, Object>> body = new TreeMap<>();
+        for (String regionName : sessionFactory.getCache().getCacheRegionNames()) {
+            CacheRegionStatistics regionStats = statistics.getCacheRegionStatistics(regionName);
+            if (regionStats == null) {
+                continue;
+            }
+            Map<String, Object> region = new LinkedHashMap<>();
+            region.put("hitCount", regionStats.getHitCount());
+            region.put("missCount", regionStats.getMissCount());
+            region.put("putCount", regionStats.getPutCount());
+            long requests = regionStats.getHitCount() + regionStats.getMissCount();
+            region.put("hitRate", requests == 0 ? 0.0 : (double) regionStats.getHitCount() / requests);
+            javax.cache.Cache<Object, Object> regionCache = cacheManager == null ? null
+                    : cacheManager.getCache(regionName);
+            if (regionCache != null) {
+                Cache<?, ?> caffeineCache = regionCache.unwrap(Cache.class);
+                region.put("size", caffeineCache.estimatedSize());
+                region.put("evictionCount", caffeineCache.stats().evictionCount());
+            }
+            body.put(regionName, region);
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Shows commands, response bytes and time per Mongo command and collection.
+     *
+     * @return the traffic or not found if the traffic metrics are switched off
+     */
+    @GetMapping("/mongo/traffic")
+    public ResponseEntity<Map<String, Map<String, Long>>> mongoTraffic() {
+        if (!mongoTrafficListener.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(mongoTrafficListener.snapshot());
+    }
+
+    /**
+     * Resets the Mongo traffic, used to measure a single scenario.
+     *
+     * @return no content
+     */
+    @DeleteMapping("/mongo/traffic")
+    public ResponseEntity<Void> resetMongoTraffic() {
+        mongoTrafficListener.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Shows sold tickets, occupancy and revenue per category of the event, read from the precomputed view.
+     *
+     * @param eventId the event id
+     * @return the statistics in category order
+     */
+    @GetMapping("/events/{eventId}")
+    public ResponseEntity<List<EventStatsDto>> eventStats(@PathVariable String eventId) {
+        return ResponseEntity.ok(bookingFacade.getEventStats(eventId));
+    }
+}
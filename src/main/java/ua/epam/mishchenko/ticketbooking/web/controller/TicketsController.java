@@ -10,11 +10,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ua.epam.mishchenko.ticketbooking.dto.EventDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.TicketDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.facade.impl.BookingFacadeImpl;
 import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.utils.PlaceBucket;
 
 import java.util.HashMap;
 import java.util.List;
@@ -74,6 +77,64 @@ public class TicketsController {
         return new ModelAndView("ticket", model);
     }
 
+    /**
+     * Book best available tickets model and view.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the model and view
+     */
+    @PostMapping("/best")
+    public ModelAndView bookBestAvailable(@RequestParam String userId,
+                                          @RequestParam String eventId,
+                                          @RequestParam Category category,
+                                          @RequestParam(defaultValue = "1") int count) {
+        log.info("Booking {} best available tickets: userId={}, eventId={}, category={}",
+                count, userId, eventId, category);
+        Map<String, Object> model = new HashMap<>();
+        List<TicketDto> tickets = bookingFacade.bookBestAvailable(userId, eventId, category, count);
+        if (tickets.isEmpty()) {
+            model.put("message", "Can not to book " + count + " tickets");
+            log.info("Can not to book {} best available tickets: userId={}, eventId={}, category={}",
+                    count, userId, eventId, category);
+        } else {
+            model.put("tickets", tickets);
+            log.info("The tickets successfully booked");
+        }
+        return new ModelAndView("tickets", model);
+    }
+
+    /**
+     * Book contiguous tickets model and view.
+     *
+     * @param userId   the user id
+     * @param eventId  the event id
+     * @param category the category
+     * @param count    the number of tickets
+     * @return the model and view
+     */
+    @PostMapping("/contiguous")
+    public ModelAndView bookContiguous(@RequestParam String userId,
+                                       @RequestParam String eventId,
+                                       @RequestParam Category category,
+                                       @RequestParam int count) {
+        log.info("Booking {} contiguous tickets: userId={}, eventId={}, category={}",
+                count, userId, eventId, category);
+        Map<String, Object> model = new HashMap<>();
+        List<TicketDto> tickets = bookingFacade.bookContiguous(userId, eventId, category, count);
+        if (tickets.isEmpty()) {
+            model.put("message", "Can not to book " + count + " contiguous tickets");
+            log.info("Can not to book {} contiguous tickets: userId={}, eventId={}, category={}",
+                    count, userId, eventId, category);
+        } else {
+            model.put("tickets", tickets);
+            log.info("The tickets successfully booked");
+        }
+        return new ModelAndView("tickets", model);
+    }
+
     /**
      * Is null boolean.
      *
@@ -84,18 +145,33 @@ public class TicketsController {
         return object == null;
     }
 
+    /**
+     * Put the tickets and the link to the next slice to the model.
+     *
+     * @param model   the model
+     * @param tickets the slice of tickets
+     */
+    private void putSlice(Map<String, Object> model, SliceDto<TicketDto> tickets) {
+        model.put("tickets", tickets.getContent());
+        if (tickets.hasNext()) {
+            model.put("next", ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", tickets.getNext())
+                    .toUriString());
+        }
+    }
+
     /**
      * Show tickets by user model and view.
      *
      * @param userId   the user id
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous page, the first page if absent
      * @return the model and view
      */
     @GetMapping("/user/{userId}")
     public ModelAndView showTicketsByUser(@PathVariable String userId,
                                           @RequestParam int pageSize,
-                                          @RequestParam int pageNum) {
+                                          @RequestParam(required = false) String cursor) {
         log.info("Showing the tickets by user with id: {}", userId);
         Map<String, Object> model = new HashMap<>();
         UserDto userById = bookingFacade.getUserById(userId);
@@ -103,12 +179,12 @@ public class TicketsController {
             model.put("message", "Can not to find a user by id: " + userId);
             log.info("Can not to find a user by id: {}", userId);
         } else {
-            List<TicketDto> bookedTickets = bookingFacade.getBookedTickets(userById, pageSize, pageNum);
-            if (bookedTickets.isEmpty()) {
+            SliceDto<TicketDto> bookedTickets = bookingFacade.getBookedTickets(userById, pageSize, cursor);
+            if (!bookedTickets.hasContent()) {
                 model.put("message", "Can not to find the tickets by user with id: " + userId);
                 log.info("Can not to find the tickets by user with id: {}", userId);
             } else {
-                model.put("tickets", bookedTickets);
+                putSlice(model, bookedTickets);
                 log.info("The tickets successfully found");
             }
         }
@@ -120,13 +196,13 @@ public class TicketsController {
      *
      * @param eventId  the event id
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous page, the first page if absent
      * @return the model and view
      */
     @GetMapping("/event/{eventId}")
     public ModelAndView showTicketsByEvent(@PathVariable String eventId,
                                            @RequestParam int pageSize,
-                                           @RequestParam int pageNum) {
+                                           @RequestParam(required = false) String cursor) {
         log.info("Showing the tickets by event with id: {}", eventId);
         Map<String, Object> model = new HashMap<>();
         EventDto eventById = bookingFacade.getEventById(eventId);
@@ -134,18 +210,65 @@ public class TicketsController {
             model.put("message", "Can not to find an event by id: " + eventId);
             log.info("Can not to find an event by id: {}", eventId);
         } else {
-            List<TicketDto> bookedTickets = bookingFacade.getBookedTickets(eventById, pageSize, pageNum);
-            if (bookedTickets.isEmpty()) {
+            SliceDto<TicketDto> bookedTickets = bookingFacade.getBookedTickets(eventById, pageSize, cursor);
+            if (!bookedTickets.hasContent()) {
                 model.put("message", "Can not to find the tickets by event with id: " + eventId);
                 log.info("Can not to find the tickets by event with id: {}", eventId);
             } else {
-                model.put("tickets", bookedTickets);
+                putSlice(model, bookedTickets);
                 log.info("The tickets successfully found");
             }
         }
         return new ModelAndView("tickets", model);
     }
 
+    /**
+     * Show tickets of a place bucket of the event model and view. The next bucket is linked while
+     * the event has places after the bucket, or while tickets are found for events without a capacity.
+     *
+     * @param eventId the event id
+     * @param bucket  the number of the place bucket, starting with 0
+     * @return the model and view
+     */
+    @GetMapping("/event/{eventId}/bucket/{bucket}")
+    public ModelAndView showTicketsByEventBucket(@PathVariable String eventId, @PathVariable int bucket) {
+        log.info("Showing the tickets by event with id: {} in the place bucket {}", eventId, bucket);
+        Map<String, Object> model = new HashMap<>();
+        EventDto eventById = bookingFacade.getEventById(eventId);
+        if (isNull(eventById)) {
+            model.put("message", "Can not to find an event by id: " + eventId);
+            log.info("Can not to find an event by id: {}", eventId);
+            return new ModelAndView("tickets", model);
+        }
+        List<TicketDto> bookedTickets = bookingFacade.getBookedTicketsInBucket(eventById, bucket);
+        if (bookedTickets.isEmpty()) {
+            model.put("message", "Can not to find the tickets by event with id: " + eventId +
+                    " in the bucket " + bucket);
+            log.info("Can not to find the tickets by event with id: {} in the place bucket {}", eventId, bucket);
+        } else {
+            model.put("tickets", bookedTickets);
+            log.info("The tickets successfully found");
+        }
+        if (hasPlacesAfter(eventById, bucket, bookedTickets)) {
+            model.put("next", ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/tickets/event/{eventId}/bucket/{bucket}")
+                    .buildAndExpand(eventId, bucket + 1)
+                    .toUriString());
+        }
+        return new ModelAndView("tickets", model);
+    }
+
+    private boolean hasPlacesAfter(EventDto event, int bucket, List<TicketDto> bookedTickets) {
+        if (bucket < 0) {
+            return false;
+        }
+        if (event.getCapacity() == null || event.getCapacity().isEmpty()) {
+            return !bookedTickets.isEmpty();
+        }
+        int lastPlace = event.getCapacity().values().stream().max(Integer::compare).orElse(0);
+        return PlaceBucket.of(bucket).getLastPlace() < lastPlace;
+    }
+
     /**
      * Cancel ticket model and view.
      *
@@ -166,4 +289,20 @@ public class TicketsController {
         }
         return new ModelAndView("ticket", model);
     }
+
+    /**
+     * Cancel tickets model and view.
+     *
+     * @param ids the ticket ids
+     * @return the model and view
+     */
+    @DeleteMapping
+    public ModelAndView cancelTickets(@RequestParam List<String> ids) {
+        log.info("Canceling tickets with ids: {}", ids);
+        Map<String, Object> model = new HashMap<>();
+        int canceledTickets = bookingFacade.cancelTickets(ids);
+        model.put("message", canceledTickets + " of " + ids.size() + " tickets successfully canceled");
+        log.info("{} of {} tickets successfully canceled", canceledTickets, ids.size());
+        return new ModelAndView("ticket", model);
+    }
 }
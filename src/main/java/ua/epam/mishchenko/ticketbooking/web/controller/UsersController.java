@@ -8,12 +8,18 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ua.epam.mishchenko.ticketbooking.dto.RefillResultDto;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
 import ua.epam.mishchenko.ticketbooking.dto.UserDto;
 import ua.epam.mishchenko.ticketbooking.facade.impl.BookingFacadeImpl;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -80,21 +86,26 @@ public class UsersController {
      *
      * @param name     the name
      * @param pageSize the page size
-     * @param pageNum  the page num
+     * @param cursor   the continuation token of the previous page, the first page if absent
      * @return the model and view
      */
     @GetMapping("/name/{name}")
     public ModelAndView showUsersByName(@PathVariable String name,
                                         @RequestParam int pageSize,
-                                        @RequestParam int pageNum) {
+                                        @RequestParam(required = false) String cursor) {
         log.info("Showing users by name: {}", name);
         Map<String, Object> model = new HashMap<>();
-        List<UserDto> usersByName = bookingFacade.getUsersByName(name, pageSize, pageNum);
-        if (usersByName.isEmpty()) {
+        SliceDto<UserDto> usersByName = bookingFacade.getUsersByName(name, pageSize, cursor);
+        if (!usersByName.hasContent()) {
             model.put("message", "Can not to find users by name: " + name);
             log.info("Can not to find users by name: {}", name);
         } else {
-            model.put("users", usersByName);
+            model.put("users", usersByName.getContent());
+            if (usersByName.hasNext()) {
+                model.put("next", ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("cursor", usersByName.getNext())
+                        .toUriString());
+            }
             log.info("The users by name: {} successfully found", name);
         }
         return new ModelAndView("users", model);
@@ -218,4 +229,17 @@ public class UsersController {
         }
         return new ModelAndView("user", model);
     }
+
+    /**
+     * Refill accounts of many users at once.
+     *
+     * @param amounts the amounts to add by user id
+     * @return the result of every credit
+     */
+    @PostMapping("/accounts/refill")
+    @ResponseBody
+    public List<RefillResultDto> refillAccounts(@RequestBody Map<String, BigDecimal> amounts) {
+        log.info("Refilling {} user accounts", amounts.size());
+        return bookingFacade.refillUserAccounts(amounts);
+    }
 }
@@ -0,0 +1,54 @@
+package ua.epam.mishchenko.ticketbooking.analytics;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+
+public class SlidingWindowCounterTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void sumShouldCountAllBucketsOfWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+
+        counter.add(0, 1);
+        counter.add(30 * MINUTE, 2);
+        counter.add(59 * MINUTE, 3);
+
+        assertEquals(6, counter.sum(59 * MINUTE));
+    }
+
+    @Test
+    public void sumShouldSkipBucketsLeftWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+
+        counter.add(0, 1);
+        counter.add(30 * MINUTE, 2);
+
+        assertEquals(2, counter.sum(60 * MINUTE));
+        assertEquals(0, counter.sum(90 * MINUTE));
+    }
+
+    @Test
+    public void addShouldResetBucketOfOldSlice() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+
+        counter.add(5 * MINUTE, 4);
+        counter.add(65 * MINUTE, 1);
+
+        assertEquals(1, counter.sum(65 * MINUTE));
+    }
+
+    @Test
+    public void addShouldIgnoreTimeOlderThanBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofHours(1), 60);
+
+        counter.add(65 * MINUTE, 1);
+        counter.add(5 * MINUTE, 4);
+
+        assertEquals(1, counter.sum(65 * MINUTE));
+    }
+}
@@ -0,0 +1,53 @@
+package ua.epam.mishchenko.ticketbooking.analytics;
+
+import org.junit.Test;
+import ua.epam.mishchenko.ticketbooking.dto.TrendingEventDto;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrendingEventsTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void rankShouldKeepMostBookedEvents() {
+        TrendingEvents trendingEvents = new TrendingEvents(null, Duration.ofHours(1), 60, 2);
+        book(trendingEvents, "a", 1, 0);
+        book(trendingEvents, "b", 3, 0);
+        book(trendingEvents, "c", 2, 0);
+
+        trendingEvents.rank(MINUTE);
+
+        assertEquals(List.of(new TrendingEventDto("b", 3), new TrendingEventDto("c", 2)), trendingEvents.getTop(10));
+        assertEquals(List.of(new TrendingEventDto("b", 3)), trendingEvents.getTop(1));
+    }
+
+    @Test
+    public void rankShouldDropEventsWithoutRecentBookings() {
+        TrendingEvents trendingEvents = new TrendingEvents(null, Duration.ofHours(1), 60, 2);
+        book(trendingEvents, "a", 5, 0);
+        book(trendingEvents, "b", 1, 50 * MINUTE);
+
+        trendingEvents.rank(70 * MINUTE);
+
+        assertEquals(List.of(new TrendingEventDto("b", 1)), trendingEvents.getTop(10));
+    }
+
+    @Test
+    public void getTopShouldBeEmptyBeforeRanking() {
+        TrendingEvents trendingEvents = new TrendingEvents(null, Duration.ofHours(1), 60, 2);
+        book(trendingEvents, "a", 1, 0);
+
+        assertTrue(trendingEvents.getTop(10).isEmpty());
+    }
+
+    private void book(TrendingEvents trendingEvents, String eventId, int count, long timeMillis) {
+        for (int i = 0; i < count; i++) {
+            trendingEvents.record(eventId, timeMillis);
+        }
+    }
+}
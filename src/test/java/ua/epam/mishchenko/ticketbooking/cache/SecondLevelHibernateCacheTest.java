@@ -2,6 +2,7 @@ package ua.epam.mishchenko.ticketbooking.cache;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,4 +69,18 @@ public class SecondLevelHibernateCacheTest {
         assertEquals(1, sessionFactory.getStatistics().getQueryCacheMissCount());
         assertEquals(5, sessionFactory.getStatistics().getSecondLevelCacheHitCount());
     }
+
+    @Test
+    public void getEventByIdShouldBeCountedInEventsRegion() {
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+
+        sessionFactory.openSession().find(Event.class, 1L);
+        sessionFactory.openSession().find(Event.class, 1L);
+
+        CacheRegionStatistics events = sessionFactory.getStatistics().getDomainDataRegionStatistics("events");
+        assertEquals(1, events.getHitCount());
+        assertEquals(1, events.getMissCount());
+        assertEquals(1, events.getPutCount());
+    }
 }
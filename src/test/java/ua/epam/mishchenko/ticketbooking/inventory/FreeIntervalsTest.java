@@ -0,0 +1,76 @@
+package ua.epam.mishchenko.ticketbooking.inventory;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FreeIntervalsTest {
+
+    @Test
+    public void freePlacesShouldBeKeptAsRuns() {
+        FreeIntervals intervals = new FreeIntervals(List.of(7, 1, 2, 3, 5, 8, 9, 10));
+
+        assertEquals(3, intervals.runCount());
+        assertEquals(4, intervals.longestRun());
+    }
+
+    @Test
+    public void findBlockShouldReturnShortestFittingRun() {
+        FreeIntervals intervals = new FreeIntervals(List.of(1, 2, 4, 5, 6, 9, 10, 11, 12));
+
+        assertEquals(1, intervals.findBlock(2));
+        assertEquals(4, intervals.findBlock(3));
+        assertEquals(9, intervals.findBlock(4));
+        assertEquals(-1, intervals.findBlock(5));
+    }
+
+    @Test
+    public void findBlockShouldPreferLowestOfShortestRuns() {
+        FreeIntervals intervals = new FreeIntervals(List.of(1, 2, 3, 4, 5, 8, 9, 12, 13));
+
+        assertEquals(8, intervals.findBlock(2));
+        assertEquals(1, intervals.findBlock(3));
+        assertEquals(8, intervals.findBlock(1));
+    }
+
+    @Test
+    public void bookShouldSplitRun() {
+        FreeIntervals intervals = new FreeIntervals(List.of(1, 2, 3, 4, 5));
+
+        assertTrue(intervals.book(3));
+        assertFalse(intervals.book(3));
+
+        assertEquals(2, intervals.runCount());
+        assertEquals(2, intervals.longestRun());
+        assertFalse(intervals.isFree(3));
+        assertEquals(-1, intervals.findBlock(3));
+    }
+
+    @Test
+    public void releaseShouldMergeAdjacentRuns() {
+        FreeIntervals intervals = new FreeIntervals(List.of(1, 2, 4, 5));
+
+        assertTrue(intervals.release(3));
+        assertFalse(intervals.release(3));
+
+        assertEquals(1, intervals.runCount());
+        assertEquals(5, intervals.longestRun());
+        assertEquals(1, intervals.findBlock(5));
+    }
+
+    @Test
+    public void bookingRunEndsShouldShrinkRun() {
+        FreeIntervals intervals = new FreeIntervals(List.of(1, 2, 3));
+
+        intervals.book(1);
+        intervals.book(3);
+
+        assertEquals(1, intervals.runCount());
+        assertEquals(2, intervals.findBlock(1));
+        assertEquals(-1, intervals.findBlock(2));
+    }
+}
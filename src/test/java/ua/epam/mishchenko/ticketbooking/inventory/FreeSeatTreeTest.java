@@ -0,0 +1,80 @@
+package ua.epam.mishchenko.ticketbooking.inventory;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FreeSeatTreeTest {
+
+    @Test
+    public void bookBestShouldReturnLowestFreePlaces() {
+        FreeSeatTree tree = new FreeSeatTree(10, List.of(2, 3, 5, 8, 9));
+
+        assertEquals(List.of(2, 3, 5), tree.bookBest(3));
+        assertEquals(2, tree.freeCount());
+        assertFalse(tree.isFree(5));
+        assertTrue(tree.isFree(8));
+    }
+
+    @Test
+    public void bookBestWithNotEnoughFreePlacesShouldBookNothing() {
+        FreeSeatTree tree = new FreeSeatTree(5, List.of(1, 4));
+
+        assertEquals(List.of(), tree.bookBest(3));
+        assertEquals(2, tree.freeCount());
+    }
+
+    @Test
+    public void findFreeShouldReturnKthFreePlace() {
+        FreeSeatTree tree = new FreeSeatTree(7, List.of(1, 3, 6, 7));
+
+        assertEquals(1, tree.findFree(1));
+        assertEquals(6, tree.findFree(3));
+        assertEquals(7, tree.findFree(4));
+        assertEquals(-1, tree.findFree(5));
+    }
+
+    @Test
+    public void releaseShouldMakePlaceBestAgain() {
+        FreeSeatTree tree = new FreeSeatTree(4, List.of(1, 2, 3, 4));
+        tree.bookBest(2);
+
+        assertTrue(tree.release(1));
+        assertFalse(tree.release(1));
+        assertEquals(List.of(1, 3), tree.bookBest(2));
+    }
+
+    @Test
+    public void bookShouldBeIdempotent() {
+        FreeSeatTree tree = new FreeSeatTree(3, List.of(1, 2, 3));
+
+        assertTrue(tree.book(2));
+        assertFalse(tree.book(2));
+        assertEquals(2, tree.freeCount());
+    }
+
+    @Test
+    public void largeVenueShouldBookEveryPlaceOnce() {
+        int capacity = 100_000;
+        FreeSeatTree tree = new FreeSeatTree(capacity, IntStream.rangeClosed(1, capacity).boxed()
+                .collect(Collectors.toList()));
+        tree.book(50_000);
+
+        List<Integer> places = tree.bookBest(capacity - 1);
+
+        assertEquals(capacity - 1, places.size());
+        assertFalse(places.contains(50_000));
+        assertEquals(0, tree.freeCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void placeOutOfCapacityShouldBeRejected() {
+        new FreeSeatTree(3, List.of(4));
+    }
+}
@@ -0,0 +1,33 @@
+package ua.epam.mishchenko.ticketbooking.plan;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+
+import java.util.Set;
+
+/**
+ * Keeps the first query command sent to the server since the last clear, so a test can explain exactly
+ * what a repository sent and not the loading of references that follows it.
+ */
+public class CapturingCommandListener implements CommandListener {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "count", "aggregate");
+
+    private volatile BsonDocument query;
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (query == null && QUERY_COMMANDS.contains(event.getCommandName())) {
+            query = event.getCommand().clone();
+        }
+    }
+
+    public BsonDocument getQuery() {
+        return query;
+    }
+
+    public void clear() {
+        query = null;
+    }
+}
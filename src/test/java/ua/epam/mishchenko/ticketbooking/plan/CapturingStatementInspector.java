@@ -0,0 +1,28 @@
+package ua.epam.mishchenko.ticketbooking.plan;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Keeps the first SQL statement prepared by Hibernate since the last clear, eager associations are loaded
+ * by later statements. Hibernate creates the inspector by its class name, so the statement is kept in a static field.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+    private static volatile String statement;
+
+    @Override
+    public String inspect(String sql) {
+        if (statement == null) {
+            statement = sql;
+        }
+        return sql;
+    }
+
+    public static String getStatement() {
+        return statement;
+    }
+
+    public static void clear() {
+        statement = null;
+    }
+}
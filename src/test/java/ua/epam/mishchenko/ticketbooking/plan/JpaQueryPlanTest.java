@@ -0,0 +1,331 @@
+package ua.epam.mishchenko.ticketbooking.plan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit4.SpringRunner;
+import ua.epam.mishchenko.ticketbooking.config.QueryCacheRegions;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.repository.EventRepository;
+import ua.epam.mishchenko.ticketbooking.repository.TicketRepository;
+import ua.epam.mishchenko.ticketbooking.repository.UserRepository;
+import ua.epam.mishchenko.ticketbooking.utils.PlaceBucket;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Explains the hot queries of the JPA repositories against a seeded local database and fails
+ * when a query stops using an index or reads too many rows per returned one.
+ * The statement prepared by Hibernate is captured and run again with {@code EXPLAIN ANALYZE},
+ * the parameters are given in the order of the statement. Runs with {@code mvn -P query-plans test}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles({"postgres", "plans"})
+@Sql(value = "classpath:sql/insert-plan-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class JpaQueryPlanTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaQueryPlanTest.class);
+
+    private static final int PAGE = 20;
+
+    private static final int MAX_EXAMINED_PER_RETURNED = 2;
+
+    private static final Set<String> INDEX_SCANS = Set.of("Index Scan", "Index Only Scan", "Bitmap Index Scan");
+
+    private static final Set<String> ROW_SCANS = Set.of("Index Scan", "Index Only Scan", "Bitmap Heap Scan",
+            "Seq Scan");
+
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int BENCHMARK_ROUNDS = 200;
+
+    private static final int BENCHMARK_TITLES = 10;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EventRepository eventRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TicketRepository ticketRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Clears the captured statement and the second level cache, the data is seeded bypassing
+     * Hibernate and a cached result would not prepare any statement.
+     */
+    @Before
+    public void clearStatementAndCache() {
+        CapturingStatementInspector.clear();
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    @Test
+    public void getFirstEventsByTitleShouldUseIndex() {
+        eventRepository.getFirstByTitle("Event 7", PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("events by title", "Event 7", PAGE + 1);
+    }
+
+    @Test
+    public void getNextEventsByTitleShouldUseIndex() {
+        Date date = eventDate(1507);
+        eventRepository.getNextByTitle("Event 7", date, 1508L, PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("next events by title", "Event 7", date, date, date, 1508L, PAGE + 1);
+    }
+
+    @Test
+    public void getFirstEventsBetweenShouldUseIndex() {
+        Date from = eventDate(0);
+        Date to = eventDate(24);
+        eventRepository.getFirstBetween(from, to, PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("events between dates", from, to, PAGE + 1);
+    }
+
+    @Test
+    public void getNextEventsBetweenShouldUseIndex() {
+        Date from = eventDate(0);
+        Date to = eventDate(48);
+        Date date = eventDate(40);
+        eventRepository.getNextBetween(from, to, date, 41L, PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("next events between dates", from, to, date, date, date, 41L, PAGE + 1);
+    }
+
+    @Test
+    public void existsEventByTitleAndDateShouldUseIndex() {
+        Date date = eventDate(1007);
+        eventRepository.existsByTitleAndDate("Event 7", date);
+
+        assertIndexScan("event exists by title and date", "Event 7", date, 1);
+    }
+
+    @Test
+    public void getUserByEmailShouldUseIndex() {
+        userRepository.getByEmail("user1000@mail.com");
+
+        assertIndexScan("user by email", "user1000@mail.com");
+    }
+
+    @Test
+    public void existsUserByEmailShouldUseIndex() {
+        userRepository.existsByEmail("user1000@mail.com");
+
+        assertIndexScan("user exists by email", "user1000@mail.com", 1);
+    }
+
+    @Test
+    public void getUsersByNameShouldUseIndex() {
+        userRepository.getAllByNameAndIdGreaterThanOrderByIdAsc("User 7", 0L, PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("users by name", "User 7", 0L, PAGE + 1);
+    }
+
+    @Test
+    public void getNextUsersByNameShouldUseIndex() {
+        userRepository.getAllByNameAndIdGreaterThanOrderByIdAsc("User 7", 1508L, PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("next users by name", "User 7", 1508L, PAGE + 1);
+    }
+
+    @Test
+    public void getTicketsByUserShouldUseIndex() {
+        ticketRepository.getAllByUserIdAndIdGreaterThanOrderByIdAsc(1001L, 0L, PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("tickets by user", 1001L, 0L, PAGE + 1);
+    }
+
+    @Test
+    public void getTicketsByEventShouldUseIndex() {
+        ticketRepository.getAllByEventIdAndIdGreaterThanOrderByIdAsc(1001L, 5001L, PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("next tickets by event", 1001L, 5001L, PAGE + 1);
+    }
+
+    @Test
+    public void getTicketsByEventInBucketShouldUseIndex() {
+        PlaceBucket bucket = PlaceBucket.of(0);
+        ticketRepository.getAllByEventIdAndPlaceBetweenOrderByPlaceAsc(1001L, bucket.getFirstPlace(),
+                bucket.getLastPlace());
+
+        assertIndexScan("tickets by event in a place bucket", 1001L, bucket.getFirstPlace(), bucket.getLastPlace());
+    }
+
+    @Test
+    public void existsTicketByEventPlaceAndCategoryShouldUseIndex() {
+        ticketRepository.existsByEventIdAndPlaceAndCategory(1001L, 3, Category.STANDARD);
+
+        assertIndexScan("ticket exists by event, place and category", 1001L, 3, Category.STANDARD, 1);
+    }
+
+    /**
+     * Repeats the search of events by title over a few titles with the query region evicted before
+     * every search and with the results kept in the region, and compares the time per search and
+     * the number of statements sent to the database.
+     */
+    @Test
+    public void cachedEventsByTitleShouldPrepareFewerStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        searchEventsByTitle(true);
+        long coldStatements = statistics.getPrepareStatementCount();
+        long coldNanos = searchEventsByTitle(true);
+        coldStatements = statistics.getPrepareStatementCount() - coldStatements;
+
+        searchEventsByTitle(false);
+        long warmStatements = statistics.getPrepareStatementCount();
+        long warmNanos = searchEventsByTitle(false);
+        warmStatements = statistics.getPrepareStatementCount() - warmStatements;
+
+        log.info("events by title: evicted {} us and {} statements per search, cached {} us and {} statements",
+                coldNanos / BENCHMARK_ROUNDS / 1000, (double) coldStatements / BENCHMARK_ROUNDS,
+                warmNanos / BENCHMARK_ROUNDS / 1000, (double) warmStatements / BENCHMARK_ROUNDS);
+        assertEquals(BENCHMARK_ROUNDS, coldStatements);
+        assertEquals(0, warmStatements);
+        assertTrue("cached searches are not faster", warmNanos < coldNanos);
+    }
+
+    private long searchEventsByTitle(boolean evict) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            if (evict) {
+                cache.evictQueryRegion(QueryCacheRegions.EVENTS);
+            }
+            eventRepository.getFirstByTitle("Event " + i % BENCHMARK_TITLES, PageRequest.ofSize(PAGE + 1));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Gets the date of the seeded event, the i-th event starts i hours after the first one.
+     */
+    private Date eventDate(int i) {
+        return Timestamp.valueOf(LocalDateTime.of(2022, 7, 1, 0, 0).plusHours(i));
+    }
+
+    private void assertIndexScan(String name, Object... parameters) {
+        String sql = CapturingStatementInspector.getStatement();
+        assertNotNull(name + " prepared no statement", sql);
+        JsonNode plan = explain(sql, parameters).get(0);
+        List<String> nodes = new ArrayList<>();
+        long examined = collectNodes(plan.get("Plan"), nodes);
+        long returned = plan.get("Plan").get("Actual Rows").asLong();
+        log.info("{}: nodes {}, {} rows examined, {} returned, {} ms",
+                name, nodes, examined, returned, plan.get("Execution Time").asDouble());
+
+        assertFalse(name + " scans the table: " + nodes, nodes.contains("Seq Scan"));
+        assertTrue(name + " uses no index: " + nodes, nodes.stream().anyMatch(INDEX_SCANS::contains));
+        assertTrue(name + " examines " + examined + " rows to return " + returned,
+                examined <= MAX_EXAMINED_PER_RETURNED * Math.max(1, returned));
+    }
+
+    /**
+     * Prepares the statement on one connection and explains its execution with the parameters.
+     */
+    private JsonNode explain(String sql, Object... parameters) {
+        String plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DEALLOCATE ALL");
+                statement.execute("PREPARE plan AS " + numberParameters(sql));
+                try (ResultSet resultSet = statement.executeQuery(
+                        "EXPLAIN (ANALYZE, FORMAT JSON) EXECUTE plan" + literals(parameters))) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+        try {
+            return MAPPER.readTree(plan);
+        } catch (Exception e) {
+            throw new IllegalStateException("Can not read the plan: " + plan, e);
+        }
+    }
+
+    private String numberParameters(String sql) {
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder numbered = new StringBuilder();
+        int number = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + ++number);
+        }
+        matcher.appendTail(numbered);
+        return numbered.toString();
+    }
+
+    private String literals(Object... parameters) {
+        StringJoiner literals = new StringJoiner(", ", "(", ")");
+        for (Object parameter : parameters) {
+            if (parameter instanceof Number) {
+                literals.add(parameter.toString());
+            } else if (parameter instanceof Date) {
+                literals.add("'" + new Timestamp(((Date) parameter).getTime()) + "'");
+            } else {
+                literals.add("'" + parameter.toString().replace("'", "''") + "'");
+            }
+        }
+        return literals.toString();
+    }
+
+    /**
+     * Collects the node types of the plan tree and counts the rows read by its scans,
+     * including the rows removed by their filters.
+     */
+    private long collectNodes(JsonNode node, List<String> nodes) {
+        String type = node.get("Node Type").asText();
+        nodes.add(type);
+        long examined = 0;
+        if (ROW_SCANS.contains(type)) {
+            examined = (node.path("Actual Rows").asLong()
+                    + node.path("Rows Removed by Filter").asLong()
+                    + node.path("Rows Removed by Index Recheck").asLong())
+                    * Math.max(1, node.path("Actual Loops").asLong());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            examined += collectNodes(child, nodes);
+        }
+        return examined;
+    }
+}
@@ -0,0 +1,383 @@
+package ua.epam.mishchenko.ticketbooking.plan;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import ua.epam.mishchenko.ticketbooking.model.Category;
+import ua.epam.mishchenko.ticketbooking.model.EventHeaderMongo;
+import ua.epam.mishchenko.ticketbooking.model.EventMongo;
+import ua.epam.mishchenko.ticketbooking.model.TicketMongo;
+import ua.epam.mishchenko.ticketbooking.model.UserMongo;
+import ua.epam.mishchenko.ticketbooking.repository.EventCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.EventMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.TicketCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.TicketMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.UserAccountCustomMongoRepository;
+import ua.epam.mishchenko.ticketbooking.repository.UserMongoRepository;
+import ua.epam.mishchenko.ticketbooking.utils.ContinuationToken;
+import ua.epam.mishchenko.ticketbooking.utils.PlaceBucket;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Explains the hot queries of the Mongo repositories against a seeded local database and fails
+ * when a query stops using an index, sorts in memory or examines too many documents per returned one.
+ * Runs with {@code mvn -P query-plans test}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles({"mongo", "plans"})
+public class MongoQueryPlanTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoQueryPlanTest.class);
+
+    private static final int EVENTS = 2000;
+
+    private static final int USERS = 2000;
+
+    private static final int TICKETS = 20000;
+
+    private static final int TITLES = 100;
+
+    private static final int PAGE = 20;
+
+    private static final int MAX_EXAMINED_PER_RETURNED = 2;
+
+    private static final int BENCHMARK_CALLS = 2000;
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private static final long START = 1656633600000L;
+
+    private static final Set<String> INDEX_STAGES = Set.of("IXSCAN", "IDHACK", "EXPRESS_IXSCAN", "COUNT_SCAN");
+
+    private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "$readPreference",
+            "txnNumber", "apiVersion");
+
+    private static final List<EventMongo> events = new ArrayList<>();
+
+    private static final List<UserMongo> users = new ArrayList<>();
+
+    private static final List<TicketMongo> tickets = new ArrayList<>();
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    EventMongoRepository eventRepository;
+
+    @Autowired
+    EventCustomMongoRepository eventCustomRepository;
+
+    @Autowired
+    UserMongoRepository userRepository;
+
+    @Autowired
+    TicketMongoRepository ticketRepository;
+
+    @Autowired
+    TicketCustomMongoRepository ticketCustomRepository;
+
+    @Autowired
+    UserAccountCustomMongoRepository userAccountCustomRepository;
+
+    @Autowired
+    CapturingCommandListener commandListener;
+
+    @Before
+    public void seed() {
+        if (events.isEmpty()) {
+            mongoTemplate.remove(new Query(), TicketMongo.class);
+            mongoTemplate.remove(new Query(), UserMongo.class);
+            mongoTemplate.remove(new Query(), EventMongo.class);
+            for (int i = 0; i < EVENTS; i++) {
+                events.add(new EventMongo(new ObjectId().toHexString(), "Event " + i % TITLES,
+                        new Date(START + i * HOUR), BigDecimal.TEN,
+                        new EnumMap<>(Category.class), new EnumMap<>(Category.class)));
+            }
+            for (int i = 0; i < USERS; i++) {
+                users.add(new UserMongo(new ObjectId().toHexString(), "User " + i % TITLES,
+                        "user" + i + "@mail.com", null));
+            }
+            for (int i = 0; i < TICKETS; i++) {
+                tickets.add(new TicketMongo(new ObjectId().toHexString(), events.get(i % EVENTS),
+                        users.get(i % USERS), i / EVENTS + 1, Category.STANDARD,
+                        EventHeaderMongo.of(events.get(i % EVENTS))));
+            }
+            mongoTemplate.insertAll(events);
+            mongoTemplate.insertAll(users);
+            mongoTemplate.insertAll(tickets);
+        }
+        commandListener.clear();
+    }
+
+    @Test
+    public void findDetailsByIdShouldUseIndex() {
+        eventRepository.findDetailsById(events.get(EVENTS / 2).getId());
+
+        assertIndexScan("event details by id");
+    }
+
+    @Test
+    public void existsEventByTitleAndDateShouldUseIndex() {
+        EventMongo event = events.get(EVENTS / 2);
+        eventRepository.existsByTitleAndDate(event.getTitle(), event.getDate());
+
+        assertIndexScan("event exists by title and date");
+    }
+
+    @Test
+    public void findEventsByTitleShouldUseIndex() {
+        eventCustomRepository.findByTitle("Event 7", null, PAGE + 1);
+
+        assertIndexScan("events by title");
+    }
+
+    @Test
+    public void findNextEventsByTitleShouldUseIndex() {
+        EventMongo event = events.get(1507);
+        eventCustomRepository.findByTitle(event.getTitle(), ContinuationToken.of(event.getDate(), event.getId()),
+                PAGE + 1);
+
+        assertIndexScan("next events by title");
+    }
+
+    @Test
+    public void findEventsBetweenShouldUseIndex() {
+        eventCustomRepository.findBetween(new Date(START), new Date(START + 24 * HOUR), null, PAGE + 1);
+
+        assertIndexScan("events between dates");
+    }
+
+    @Test
+    public void findNextEventsBetweenShouldUseIndex() {
+        EventMongo event = events.get(40);
+        eventCustomRepository.findBetween(new Date(START), new Date(START + 48 * HOUR),
+                ContinuationToken.of(event.getDate(), event.getId()), PAGE + 1);
+
+        assertIndexScan("next events between dates");
+    }
+
+    @Test
+    public void getUserByEmailShouldUseIndex() {
+        userRepository.getByEmail(users.get(USERS / 2).getEmail());
+
+        assertIndexScan("user by email");
+    }
+
+    @Test
+    public void existsUserByEmailShouldUseIndex() {
+        userRepository.existsByEmail(users.get(USERS / 2).getEmail());
+
+        assertIndexScan("user exists by email");
+    }
+
+    @Test
+    public void getUsersByNameShouldUseIndex() {
+        userRepository.getAllByNameAndIdGreaterThanOrderByIdAsc("User 7", ContinuationToken.MIN_OBJECT_ID,
+                PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("users by name");
+    }
+
+    @Test
+    public void getNextUsersByNameShouldUseIndex() {
+        UserMongo user = users.get(USERS / 2 + 7);
+        userRepository.getAllByNameAndIdGreaterThanOrderByIdAsc(user.getName(), user.getId(),
+                PageRequest.ofSize(PAGE + 1));
+
+        assertIndexScan("next users by name");
+    }
+
+    @Test
+    public void findTicketsByEventShouldUseIndex() {
+        ticketCustomRepository.getAllByEventId(events.get(EVENTS / 2).getId(), ContinuationToken.MIN_OBJECT_ID,
+                PAGE + 1);
+
+        assertIndexScan("tickets by event");
+    }
+
+    @Test
+    public void findTicketsByUserShouldUseIndex() {
+        TicketMongo ticket = tickets.get(TICKETS / 2);
+        ticketCustomRepository.getAllByUserId(ticket.getUser().getId(), ticket.getId(), PAGE + 1);
+
+        assertIndexScan("next tickets by user");
+    }
+
+    @Test
+    public void findTicketsByEventInBucketShouldUseIndex() {
+        ticketCustomRepository.getAllByEventIdInBucket(events.get(EVENTS / 2).getId(), PlaceBucket.of(0));
+
+        assertIndexScan("tickets by event in a place bucket");
+    }
+
+    @Test
+    public void existsTicketByEventPlaceAndCategoryShouldUseIndex() {
+        TicketMongo ticket = tickets.get(TICKETS / 2);
+        ticketRepository.existsByEventAndPlaceAndCategory(ticket.getEvent(), ticket.getPlace(), ticket.getCategory());
+
+        assertIndexScan("ticket exists by event, place and category");
+    }
+
+    @Test
+    public void findAccountByUserIdShouldUseIndex() {
+        userAccountCustomRepository.findByUserId(users.get(USERS / 2).getId());
+
+        assertIndexScan("account by user id");
+    }
+
+    @Test
+    public void findAccountsByUserIdsShouldUseIndex() {
+        userAccountCustomRepository.findByUserIds(
+                users.subList(USERS / 2, USERS / 2 + PAGE).stream().map(UserMongo::getId).collect(Collectors.toList()));
+
+        assertIndexScan("accounts by user ids");
+    }
+
+    /**
+     * Compares the projected point lookup of an account with a $match/$project aggregation. The plans
+     * are compared, the time per call is only logged as it depends on the load of the host.
+     */
+    @Test
+    public void findAccountByUserIdShouldExamineNoMoreThanAggregation() {
+        String userId = users.get(USERS / 2).getId();
+        userAccountCustomRepository.findByUserId(userId);
+        Document find = explain(commandListener.getQuery());
+        commandListener.clear();
+        mongoTemplate.aggregate(accountAggregation(userId), UserMongo.class, Document.class).getUniqueMappedResult();
+        Document aggregation = explain(commandListener.getQuery());
+
+        List<String> stages = new ArrayList<>();
+        collectStages(find.get("queryPlanner", Document.class).get("winningPlan", Document.class), stages);
+        Document findStats = find.get("executionStats", Document.class);
+        Document aggregationStats = aggregation.get("executionStats", Document.class);
+        log.info("account by user id: find stages {}, {} keys and {} documents examined, " +
+                        "aggregation {} keys and {} documents examined, times per call {}",
+                stages, findStats.getInteger("totalKeysExamined"), findStats.getInteger("totalDocsExamined"),
+                aggregationStats.getInteger("totalKeysExamined"), aggregationStats.getInteger("totalDocsExamined"),
+                timeAccountLookups());
+
+        assertTrue("account by user id uses no index: " + stages, stages.stream().anyMatch(INDEX_STAGES::contains));
+        assertTrue("account by user id examines more than one key", findStats.getInteger("totalKeysExamined") <= 1);
+        assertTrue("account by user id examines more documents than the aggregation",
+                findStats.getInteger("totalDocsExamined") <= aggregationStats.getInteger("totalDocsExamined"));
+    }
+
+    private Aggregation accountAggregation(String userId) {
+        return Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(userId)),
+                Aggregation.project("userAccount.money"));
+    }
+
+    /**
+     * Times the aggregation and the projected find after a warm-up.
+     *
+     * @return the times per call
+     */
+    private String timeAccountLookups() {
+        for (int i = 0; i < BENCHMARK_CALLS; i++) {
+            mongoTemplate.aggregate(accountAggregation(users.get(0).getId()), UserMongo.class, Document.class)
+                    .getUniqueMappedResult();
+            userAccountCustomRepository.findByUserId(users.get(0).getId());
+        }
+        long aggregationStart = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_CALLS; i++) {
+            mongoTemplate.aggregate(accountAggregation(users.get(i % USERS).getId()), UserMongo.class, Document.class)
+                    .getUniqueMappedResult();
+        }
+        long aggregationNanos = (System.nanoTime() - aggregationStart) / BENCHMARK_CALLS;
+        long findStart = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_CALLS; i++) {
+            userAccountCustomRepository.findByUserId(users.get(i % USERS).getId());
+        }
+        long findNanos = (System.nanoTime() - findStart) / BENCHMARK_CALLS;
+        return "aggregation " + aggregationNanos / 1000 + " us, projected find " + findNanos / 1000 + " us";
+    }
+
+    private void assertIndexScan(String name) {
+        BsonDocument query = commandListener.getQuery();
+        assertNotNull(name + " sent no query", query);
+        Document explain = explain(query);
+        List<String> stages = new ArrayList<>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan", Document.class), stages);
+        Document stats = explain.get("executionStats", Document.class);
+        int returned = stats.getInteger("nReturned");
+        int examined = stats.getInteger("totalDocsExamined");
+        log.info("{}: stages {}, {} documents examined, {} returned, {} ms",
+                name, stages, examined, returned, stats.getInteger("executionTimeMillis"));
+
+        assertFalse(name + " scans the collection: " + stages, stages.contains("COLLSCAN"));
+        assertFalse(name + " sorts in memory: " + stages, stages.contains("SORT"));
+        assertTrue(name + " uses no index: " + stages, stages.stream().anyMatch(INDEX_STAGES::contains));
+        assertTrue(name + " examines " + examined + " documents to return " + returned,
+                examined <= MAX_EXAMINED_PER_RETURNED * Math.max(1, returned));
+    }
+
+    /**
+     * Explains the captured command without its session fields, an aggregation pushed down to the query
+     * layer keeps the plan in its first stage.
+     */
+    private Document explain(BsonDocument query) {
+        BsonDocument command = query.clone();
+        SESSION_FIELDS.forEach(command::remove);
+        Document explain = mongoTemplate.getDb().runCommand(
+                new Document("explain", command).append("verbosity", "executionStats"));
+        List<Document> aggregationStages = explain.getList("stages", Document.class);
+        return aggregationStages == null ? explain : aggregationStages.get(0).get("$cursor", Document.class);
+    }
+
+    /**
+     * Collects the stage names of the plan tree, the slot based engine keeps the tree under queryPlan.
+     */
+    private void collectStages(Document plan, List<String> stages) {
+        Document queryPlan = plan.get("queryPlan", Document.class);
+        if (queryPlan != null) {
+            plan = queryPlan;
+        }
+        stages.add(plan.getString("stage"));
+        Document inputStage = plan.get("inputStage", Document.class);
+        if (inputStage != null) {
+            collectStages(inputStage, stages);
+        }
+        List<Document> inputStages = plan.getList("inputStages", Document.class);
+        if (inputStages != null) {
+            inputStages.forEach(stage -> collectStages(stage, stages));
+        }
+    }
+
+    @TestConfiguration
+    static class CommandListenerConfig {
+
+        @Bean
+        CapturingCommandListener capturingCommandListener() {
+            return new CapturingCommandListener();
+        }
+    }
+}
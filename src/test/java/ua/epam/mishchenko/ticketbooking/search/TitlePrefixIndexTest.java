@@ -0,0 +1,60 @@
+package ua.epam.mishchenko.ticketbooking.search;
+
+import org.junit.Test;
+import ua.epam.mishchenko.ticketbooking.dto.TitleCountDto;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TitlePrefixIndexTest {
+
+    private static final List<TitleCountDto> TITLES = List.of(
+            new TitleCountDto("Rock Fest", 3L),
+            new TitleCountDto("Rolling Stones", 1L),
+            new TitleCountDto("Jazz Night", 2L),
+            new TitleCountDto("Robot Show", 1L));
+
+    @Test
+    public void suggestShouldReturnTitlesOfPrefixInOrder() {
+        TitlePrefixIndex index = new TitlePrefixIndex();
+
+        assertEquals(List.of("Robot Show", "Rock Fest", "Rolling Stones"), index.suggest("ro", 10, () -> TITLES));
+        assertEquals(List.of("Robot Show", "Rock Fest"), index.suggest("  RO", 2, () -> TITLES));
+        assertEquals(List.of(), index.suggest("x", 10, () -> TITLES));
+        assertEquals(List.of(), index.suggest("", 10, () -> TITLES));
+    }
+
+    @Test
+    public void titleShouldStayWhileAnyEventHasIt() {
+        TitlePrefixIndex index = new TitlePrefixIndex();
+        index.suggest("j", 10, () -> TITLES);
+
+        index.remove("Jazz Night");
+        assertEquals(List.of("Jazz Night"), index.suggest("j", 10, List::of));
+
+        index.remove("jazz  night");
+        assertEquals(List.of(), index.suggest("j", 10, List::of));
+    }
+
+    @Test
+    public void replaceShouldMoveTitle() {
+        TitlePrefixIndex index = new TitlePrefixIndex();
+        index.suggest("r", 10, () -> TITLES);
+
+        index.replace("Robot Show", "Jazz Brunch");
+        index.add("Blues Evening");
+
+        assertEquals(List.of("Jazz Brunch", "Jazz Night"), index.suggest("ja", 10, List::of));
+        assertEquals(List.of("Rock Fest", "Rolling Stones"), index.suggest("ro", 10, List::of));
+        assertEquals(List.of("Blues Evening"), index.suggest("b", 10, List::of));
+    }
+
+    @Test
+    public void changesShouldBeIgnoredUntilLoaded() {
+        TitlePrefixIndex index = new TitlePrefixIndex();
+        index.add("Rock Fest");
+
+        assertEquals(List.of("Rock Fest"), index.suggest("rock", 10, () -> List.of(new TitleCountDto("Rock Fest", 1L))));
+    }
+}
@@ -0,0 +1,65 @@
+package ua.epam.mishchenko.ticketbooking.utils;
+
+import org.junit.Test;
+import ua.epam.mishchenko.ticketbooking.dto.SliceDto;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContinuationTokenTest {
+
+    @Test
+    public void tokenWithSortKeyShouldSurviveEncoding() {
+        ContinuationToken token = ContinuationToken.of(new Date(1656633600000L), "62bee6d6b3e1b2a8c1f2e3d4");
+
+        ContinuationToken decoded = ContinuationToken.decode(token.encode());
+
+        assertEquals(token, decoded);
+        assertTrue(decoded.hasSortKey());
+        assertEquals(new Date(1656633600000L), decoded.getDate());
+        assertEquals("62bee6d6b3e1b2a8c1f2e3d4", decoded.getId());
+    }
+
+    @Test
+    public void tokenWithIdOnlyShouldSurviveEncoding() {
+        ContinuationToken decoded = ContinuationToken.decode(ContinuationToken.of("42").encode());
+
+        assertFalse(decoded.hasSortKey());
+        assertEquals("42", decoded.getId());
+    }
+
+    @Test
+    public void missingCursorShouldStartFromFirstId() {
+        assertNull(ContinuationToken.decode(null));
+        assertNull(ContinuationToken.decode(" "));
+        assertEquals("0", ContinuationToken.idAfter(null, "0"));
+        assertEquals("42", ContinuationToken.idAfter(ContinuationToken.of("42").encode(), "0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedCursorShouldBeRejected() {
+        ContinuationToken.decode("bm90LWEtdG9rZW4");
+    }
+
+    @Test
+    public void sliceShouldDropExtraRowAndPointAfterLastRow() {
+        SliceDto<String> slice = SliceDto.of(List.of("1", "2", "3"), 2, ContinuationToken::of);
+
+        assertEquals(List.of("1", "2"), slice.getContent());
+        assertTrue(slice.hasNext());
+        assertEquals("2", ContinuationToken.decode(slice.getNext()).getId());
+    }
+
+    @Test
+    public void lastSliceShouldHaveNoNextToken() {
+        SliceDto<String> slice = SliceDto.of(List.of("1", "2"), 2, ContinuationToken::of);
+
+        assertEquals(List.of("1", "2"), slice.getContent());
+        assertFalse(slice.hasNext());
+    }
+}
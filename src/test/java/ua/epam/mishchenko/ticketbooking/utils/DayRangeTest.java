@@ -0,0 +1,28 @@
+package ua.epam.mishchenko.ticketbooking.utils;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class DayRangeTest {
+
+    @Test
+    public void rangeShouldStartAtMidnightOfTheZone() {
+        DayRange range = DayRange.of(Date.from(Instant.parse("2022-07-01T21:30:00Z")), ZoneId.of("Europe/Kiev"));
+
+        assertEquals(Date.from(Instant.parse("2022-07-01T21:00:00Z")), range.getFrom());
+        assertEquals(Date.from(Instant.parse("2022-07-02T21:00:00Z")), range.getTo());
+    }
+
+    @Test
+    public void rangeOfDaylightSavingDayShouldBeShorter() {
+        DayRange range = DayRange.of(Date.from(Instant.parse("2022-03-27T12:00:00Z")), ZoneId.of("Europe/Kiev"));
+
+        assertEquals(Date.from(Instant.parse("2022-03-26T22:00:00Z")), range.getFrom());
+        assertEquals(Date.from(Instant.parse("2022-03-27T21:00:00Z")), range.getTo());
+    }
+}
@@ -0,0 +1,28 @@
+package ua.epam.mishchenko.ticketbooking.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PlaceBucketTest {
+
+    @Test
+    public void firstBucketShouldStartWithFirstPlace() {
+        PlaceBucket bucket = PlaceBucket.of(0);
+
+        assertEquals(1, bucket.getFirstPlace());
+        assertEquals(PlaceBucket.SIZE, bucket.getLastPlace());
+    }
+
+    @Test
+    public void placeShouldBeInBucketOfItsRange() {
+        assertEquals(0, PlaceBucket.ofPlace(PlaceBucket.SIZE).getNumber());
+        assertEquals(1, PlaceBucket.ofPlace(PlaceBucket.SIZE + 1).getNumber());
+        assertEquals(2 * PlaceBucket.SIZE + 1, PlaceBucket.of(2).getFirstPlace());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeBucketShouldBeRejected() {
+        PlaceBucket.of(-1);
+    }
+}
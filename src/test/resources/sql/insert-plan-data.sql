@@ -0,0 +1,17 @@
+TRUNCATE TABLE tickets, user_accounts, users, events RESTART IDENTITY CASCADE;
+
+insert into events (title, date, ticket_price)
+select 'Event ' || i % 100, timestamp '2022-07-01 00:00' + i * interval '1 hour', 10
+from generate_series(0, 1999) as i;
+
+insert into users (name, email)
+select 'User ' || i % 100, 'user' || i || '@mail.com'
+from generate_series(0, 1999) as i;
+
+insert into tickets (user_id, event_id, place, category)
+select i % 2000 + 1, i % 2000 + 1, i / 2000 + 1, 'STANDARD'
+from generate_series(0, 19999) as i;
+
+analyze events;
+analyze users;
+analyze tickets;